@@ -0,0 +1,78 @@
+package io.kestra.plugin.graphql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic GraphQL responses for the benchmarks.
+ * <p>
+ * Half of the size goes to {@code data}, the other half to members the task throws away
+ * ({@code extensions.tracing}), which is what real gateways with tracing enabled return.
+ */
+final class Payloads {
+    private Payloads() {
+    }
+
+    static String response(int size) {
+        StringBuilder builder = new StringBuilder(size + 1024);
+        builder.append("{\"data\":{\"issues\":{\"nodes\":[");
+        appendNodes(builder, size / 2);
+        builder.append("]}},\"extensions\":{\"tracing\":{\"resolvers\":[");
+        appendResolvers(builder, size);
+        builder.append("]}}}");
+
+        return builder.toString();
+    }
+
+    /**
+     * Variables of a bulk mutation: {@code count} input objects of a few fields each.
+     */
+    static Map<String, Object> variables(int count) {
+        List<Map<String, Object>> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            inputs.add(Map.of(
+                "number", i,
+                "title", "Issue number " + i + " with a reasonably long title",
+                "labels", List.of("bug", "performance")
+            ));
+        }
+
+        return Map.of("inputs", inputs);
+    }
+
+    /**
+     * Request headers, half of them being templates rendered on every request.
+     */
+    static Map<CharSequence, CharSequence> headers(int count) {
+        Map<CharSequence, CharSequence> headers = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            headers.put("X-Header-" + i, i % 2 == 0 ? "value-" + i : "{{ 'value-' ~ " + i + " }}");
+        }
+
+        return headers;
+    }
+
+    private static void appendNodes(StringBuilder builder, int size) {
+        for (int i = 0; builder.length() < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"number\":").append(i)
+                .append(",\"title\":\"Issue number ").append(i).append(" with a reasonably long title\"")
+                .append(",\"state\":\"OPEN\",\"labels\":[\"bug\",\"performance\"]}");
+        }
+    }
+
+    private static void appendResolvers(StringBuilder builder, int size) {
+        for (int i = 0; builder.length() < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"path\":[\"issues\",\"nodes\",").append(i)
+                .append("],\"parentType\":\"Issue\",\"fieldName\":\"title\",\"startOffset\":").append(i * 10)
+                .append(",\"duration\":").append(i % 97).append('}');
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.kestra.plugin.graphql;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import io.kestra.core.http.HttpRequest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+
+import io.micronaut.context.ApplicationContext;
+
+/**
+ * Rendering of the HTTP request by {@link Request#request(RunContext)} on a real {@link RunContext}:
+ * query and variables templates, payload map and headers grouping.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequestBenchmark {
+    private static final String QUERY = """
+        mutation CreateIssues($inputs: [IssueInput!]!) {
+          createIssues(inputs: $inputs) {
+            nodes {
+              number
+              title
+            }
+          }
+        }
+        """;
+
+    @Param({"10", "1000"})
+    private int variables;
+
+    @Param({"4", "32"})
+    private int headers;
+
+    private ApplicationContext applicationContext;
+
+    private RunContext runContext;
+
+    private Request request;
+
+    @Setup
+    public void setup() {
+        this.applicationContext = ApplicationContext.run();
+        this.runContext = applicationContext.getBean(RunContextFactory.class).of();
+
+        this.request = Request.builder()
+            .id("benchmark")
+            .type(Request.class.getName())
+            .uri(Property.ofValue("http://localhost:8080/graphql"))
+            .query(Property.ofValue(QUERY))
+            .variables(Property.ofValue(Payloads.variables(variables)))
+            .headers(Property.ofValue(Payloads.headers(headers)))
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.applicationContext.close();
+    }
+
+    @Benchmark
+    public HttpRequest buildRequest() throws Exception {
+        return request.request(runContext);
+    }
+}
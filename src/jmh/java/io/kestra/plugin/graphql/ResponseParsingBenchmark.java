@@ -0,0 +1,46 @@
+package io.kestra.plugin.graphql;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * Compares materializing the whole response as a {@link Map} with the streaming envelope reader used by {@link Request}.
+ * Run with {@code ./gradlew jmh}; the {@code gc} profiler reports {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResponseParsingBenchmark {
+    private static final List<Object> DATA = List.of("data");
+
+    @Param({"1", "10", "100"})
+    private int megabytes;
+
+    private String body;
+
+    @Setup
+    public void setup() {
+        this.body = Payloads.response(megabytes * 1024 * 1024);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void readValueIntoMap(Blackhole blackhole) throws Exception {
+        Map<String, Object> response = JacksonMapper.ofJson().readValue(body, Map.class);
+        blackhole.consume(response.get("data"));
+        blackhole.consume(response.get("errors"));
+    }
+
+    @Benchmark
+    public void streamingEnvelope(Blackhole blackhole) throws Exception {
+        ResponseReader.Result result = ResponseReader.readValue(body, false, false, DATA);
+        blackhole.consume(result.getData());
+        blackhole.consume(result.getErrors());
+    }
+}
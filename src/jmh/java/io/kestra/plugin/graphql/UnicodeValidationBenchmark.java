@@ -0,0 +1,41 @@
+package io.kestra.plugin.graphql;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Streaming parsing of a response body by {@link ResponseReader}, as done by {@link Request} for every response that is not encrypted,
+ * with and without the Unicode validation, which tells the cost of the validation on realistic responses.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UnicodeValidationBenchmark {
+    private static final List<Object> DATA = List.of("data");
+
+    @Param({"1", "10"})
+    private int megabytes;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        this.body = Payloads.response(megabytes * 1024 * 1024).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void withUnicodeValidation(Blackhole blackhole) throws Exception {
+        blackhole.consume(ResponseReader.readValue(new ByteArrayInputStream(body), true, false, DATA));
+    }
+
+    @Benchmark
+    public void withoutUnicodeValidation(Blackhole blackhole) throws Exception {
+        blackhole.consume(ResponseReader.readValue(new ByteArrayInputStream(body), false, false, DATA));
+    }
+}
@@ -0,0 +1,62 @@
+package io.kestra.plugin.graphql;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+
+/**
+ * Window of requests in flight on virtual threads, handing back their results either in submission order or in completion order.
+ * <p>
+ * A result is only referenced by the window until it is handed back by {@link #next()}: in ordered mode the futures are
+ * kept in submission order only, as a completion queue would retain every finished future that is never taken from it.
+ */
+final class BatchWindow<T> implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Deque<Future<T>> pending = new ArrayDeque<>();
+
+    private final CompletionService<T> completion;
+
+    BatchWindow(boolean ordered) {
+        this.completion = ordered ? null : new ExecutorCompletionService<>(executor);
+    }
+
+    void submit(Callable<T> task) {
+        pending.add(completion == null ? executor.submit(task) : completion.submit(task));
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Wait for the next result, either the oldest one submitted when ordered, or the first one to complete.
+     */
+    T next() throws Exception {
+        Future<T> future;
+        if (completion == null) {
+            future = pending.removeFirst();
+        } else {
+            future = completion.take();
+            pending.remove(future);
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
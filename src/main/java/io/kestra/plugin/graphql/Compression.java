@@ -0,0 +1,64 @@
+package io.kestra.plugin.graphql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(title = "Content coding of an HTTP body")
+public enum Compression {
+    NONE(null),
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    /**
+     * The codings the task can decode, sent in {@code Accept-Encoding}.
+     */
+    static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private final String encoding;
+
+    Compression(String encoding) {
+        this.encoding = encoding;
+    }
+
+    String encoding() {
+        return encoding;
+    }
+
+    byte[] compress(byte[] content) throws IOException {
+        if (this == NONE) {
+            return content;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (OutputStream output = this == GZIP ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+            output.write(content);
+        }
+
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Decode a body with the given {@code Content-Encoding}, returning it as is when it is not encoded.
+     *
+     * @throws IOException if the coding is not supported
+     */
+    static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank() || contentEncoding.equalsIgnoreCase("identity")) {
+            return body;
+        }
+
+        return switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body, 64 * 1024);
+            case "deflate" -> new InflaterInputStream(body);
+            default -> throw new IOException("Unsupported response Content-Encoding '" + contentEncoding + "', only gzip and deflate are supported");
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.kestra.core.http.HttpResponse;
+import io.kestra.core.runners.RunContext;
+
+/**
+ * Helpers for HTTP conditional requests.
+ * <p>
+ * The validators ({@code ETag} and {@code Last-Modified}) of the last response are stored in the KV store of the flow
+ * namespace with a reference to the output they validate, so the next run can send them back and reuse that output on a {@code 304 Not Modified}.
+ * Outputs are stored once, keyed by a hash of their status code, body and extensions, so that the validators of several requests returning the same output share it.
+ * Both entries expire after the TTL chosen by the writer, every successful response extending it.
+ */
+final class ConditionalRequests {
+    static final String KEY_PREFIX = "graphql_validators_";
+
+    static final String OUTPUT_KEY_PREFIX = "graphql_validated_";
+
+    static final Duration DEFAULT_TTL = Duration.ofDays(7);
+
+    static final int NOT_MODIFIED = 304;
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * The {@code If-None-Match} and {@code If-Modified-Since} headers matching the stored validators, empty when there are none.
+     */
+    static Map<String, String> headers(Map<String, Object> stored) {
+        if (stored == null) {
+            return Map.of();
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        if (stored.get("etag") instanceof String etag) {
+            headers.put("If-None-Match", etag);
+        }
+        if (stored.get("lastModified") instanceof String lastModified) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+
+        return headers;
+    }
+
+    /**
+     * The output referenced by stored validators, empty when it expired or was removed.
+     */
+    static Optional<Map<String, Object>> output(RunContext runContext, Map<String, Object> stored) {
+        if (!(stored.get("output") instanceof String outputKey)) {
+            return Optional.empty();
+        }
+
+        return ResponseCache.get(runContext, outputKey);
+    }
+
+    /**
+     * Store the validators of a response under {@code key}, and the output they validate under a key derived from its content.
+     */
+    static void put(RunContext runContext, String key, Map<String, Object> validators, Map<String, Object> output, Duration ttl) throws IOException {
+        // headers such as Date change on every response, so they are left out of the hash
+        Map<String, Object> content = new HashMap<>(output);
+        content.remove("headers");
+        String outputKey = OUTPUT_KEY_PREFIX + ResponseCache.fingerprint(content);
+        ResponseCache.put(runContext, outputKey, output, ttl, "GraphQL validated response");
+
+        Map<String, Object> state = new HashMap<>(validators);
+        state.put("output", outputKey);
+        ResponseCache.put(runContext, key, state, ttl, "GraphQL response validators");
+    }
+
+    /**
+     * The validators of a response, empty when the server did not send any.
+     */
+    static Map<String, Object> validators(HttpResponse<?> response) {
+        if (response.getHeaders() == null) {
+            return Map.of();
+        }
+
+        return validators(response.getHeaders().map());
+    }
+
+    /**
+     * The validators found in response headers, such as the {@code headers} of a {@link Request.Output}, header names being case-insensitive.
+     */
+    static Map<String, Object> validators(Map<String, List<String>> headers) {
+        Map<String, Object> validators = new HashMap<>();
+        if (headers == null) {
+            return validators;
+        }
+
+        headers.forEach((name, values) -> {
+            if (values == null || values.isEmpty()) {
+                return;
+            }
+            if ("ETag".equalsIgnoreCase(name)) {
+                validators.put("etag", values.getFirst());
+            } else if ("Last-Modified".equalsIgnoreCase(name)) {
+                validators.put("lastModified", values.getFirst());
+            }
+        });
+
+        return validators;
+    }
+}
@@ -0,0 +1,40 @@
+package io.kestra.plugin.graphql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+
+/**
+ * Rendering of the GraphQL payload shared by the tasks and triggers of the plugin.
+ */
+final class GraphQLPayload {
+    private GraphQLPayload() {
+    }
+
+    /**
+     * Render the {@code query}, {@code variables} and {@code operationName} of an operation, leaving out the ones that are not set.
+     */
+    static Map<String, Object> render(RunContext runContext, Property<String> query, Property<Map<String, Object>> variables, Property<String> operationName) throws IllegalVariableEvaluationException {
+        String renderedQuery = runContext.render(query).as(String.class).orElseThrow();
+
+        Map<String, Object> requestPayload = new HashMap<>();
+        requestPayload.put("query", renderedQuery);
+
+        if (variables != null) {
+            Object renderedVariables = runContext.render(variables).asMap(String.class, Object.class);
+            requestPayload.put("variables", renderedVariables);
+        }
+
+        if (operationName != null) {
+            String renderedOpName = runContext.render(operationName).as(String.class).orElse(null);
+            if (renderedOpName != null && !renderedOpName.isEmpty()) {
+                requestPayload.put("operationName", renderedOpName);
+            }
+        }
+
+        return requestPayload;
+    }
+}
@@ -0,0 +1,433 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Reader of {@code multipart/mixed} responses of operations using {@code @defer} and {@code @stream}.
+ * <p>
+ * Parts are applied as they arrive, straight from the response stream, and only what {@code extract} selects is kept:
+ * deferred fragments are merged at their path and streamed items appended to their list, anything outside the extracted
+ * value being skipped. When rows are written to a consumer, streamed items are handed over as soon as their part is read,
+ * and only the rows still waiting for a pending deferred fragment are held in memory.
+ * Both the path-based format and the newer format with {@code pending} ids of the incremental delivery proposal are supported;
+ * as the path-based format does not announce what is pending, rows are only handed over once its response completes.
+ */
+final class IncrementalDelivery {
+    static final String ACCEPT = "multipart/mixed; incrementalSpec=v0.2, multipart/mixed; deferSpec=20220824, application/json";
+
+    private final List<Object> path;
+
+    private final boolean validateUnicode;
+
+    private final boolean withExtensions;
+
+    private final ResponseReader.RowConsumer consumer;
+
+    private IncrementalDelivery(List<Object> path, boolean validateUnicode, boolean withExtensions, ResponseReader.RowConsumer consumer) {
+        this.path = path;
+        this.validateUnicode = validateUnicode;
+        this.withExtensions = withExtensions;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Read the value at {@code path} into the result data, as {@link ResponseReader#readValue(InputStream, boolean, boolean, List)}.
+     */
+    static IncrementalDelivery value(List<Object> path, boolean validateUnicode, boolean withExtensions) {
+        return new IncrementalDelivery(path, validateUnicode, withExtensions, null);
+    }
+
+    /**
+     * Hand the rows at {@code path} to {@code consumer}, as {@link ResponseReader#read(InputStream, boolean, List, ResponseReader.RowConsumer)}.
+     */
+    static IncrementalDelivery rows(List<Object> path, boolean validateUnicode, ResponseReader.RowConsumer consumer) {
+        return new IncrementalDelivery(path, validateUnicode, false, consumer);
+    }
+
+    /**
+     * Whether a {@code Content-Type} is a multipart response to merge.
+     */
+    static boolean isMultipart(String contentType) {
+        return contentType != null && contentType.trim().toLowerCase().startsWith("multipart/mixed");
+    }
+
+    /**
+     * The boundary of a {@code multipart/mixed} content type, {@code -} when missing as allowed by the proposal.
+     */
+    static String boundary(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            String[] pair = parameter.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("boundary")) {
+                return pair[1].trim().replace("\"", "");
+            }
+        }
+
+        return "-";
+    }
+
+    ResponseReader.Result read(InputStream body, String boundary) throws IOException {
+        return new Response().read(new MultipartParts(body, boundary));
+    }
+
+    /**
+     * State of one response.
+     */
+    private final class Response {
+        private final List<Object> errors = new ArrayList<>();
+
+        private final Map<String, List<Object>> pending = new HashMap<>();
+
+        private final Deque<Row> held = new ArrayDeque<>();
+
+        private Object value;
+
+        private Object extensions;
+
+        private boolean rowList;
+
+        private int nextIndex;
+
+        private long written;
+
+        private boolean announced;
+
+        ResponseReader.Result read(MultipartParts parts) throws IOException {
+            boolean initial = true;
+            boolean hasNext = true;
+
+            InputStream part = parts.next();
+            while (part != null && hasNext) {
+                if (initial) {
+                    hasNext = this.initial(ResponseReader.readValue(part, validateUnicode, withExtensions, path));
+                    initial = false;
+                } else {
+                    Map<String, Object> payload = ResponseReader.readObject(part, validateUnicode);
+                    // empty payloads are heartbeats
+                    if (!payload.isEmpty()) {
+                        hasNext = this.subsequent(payload);
+                    }
+                }
+
+                this.flush(false);
+                part = hasNext ? parts.next() : null;
+            }
+
+            this.flush(true);
+
+            return ResponseReader.Result.builder()
+                .rows(written)
+                .data(consumer == null ? value : null)
+                .errors(errors.isEmpty() ? null : errors)
+                .extensions(extensions)
+                .build();
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean initial(ResponseReader.Result result) {
+            addErrors(result.getErrors());
+            extensions = result.getExtensions();
+
+            List<Object> pendingList = result.getPending();
+            Boolean hasNext = result.getHasNext();
+            if (path.isEmpty() && result.getData() instanceof Map<?, ?> root) {
+                // the whole payload is extracted, so the reader could not pick these members
+                pendingList = root.get("pending") instanceof List<?> list ? (List<Object>) list : null;
+                hasNext = root.get("hasNext") instanceof Boolean next ? next : null;
+            }
+
+            if (pendingList != null) {
+                announced = true;
+                this.addPending(pendingList);
+            }
+
+            if (consumer != null && result.getData() instanceof List<?> rows) {
+                rowList = true;
+                for (Object row : rows) {
+                    held.add(new Row(nextIndex++, row));
+                }
+            } else {
+                value = result.getData();
+            }
+
+            return !Boolean.FALSE.equals(hasNext);
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean subsequent(Map<String, Object> payload) throws IOException {
+            addErrors(payload.get("errors"));
+            if (withExtensions && payload.get("extensions") != null) {
+                extensions = payload.get("extensions");
+            }
+
+            if (payload.get("pending") instanceof List<?> pendingList) {
+                announced = true;
+                this.addPending((List<Object>) pendingList);
+            }
+
+            if (payload.get("incremental") instanceof List<?> incremental) {
+                for (Object entry : incremental) {
+                    if (entry instanceof Map<?, ?> map) {
+                        this.apply((Map<String, Object>) map);
+                    }
+                }
+            }
+
+            if (payload.get("completed") instanceof List<?> completed) {
+                for (Object entry : completed) {
+                    if (entry instanceof Map<?, ?> map) {
+                        addErrors(map.get("errors"));
+                        pending.remove(String.valueOf(map.get("id")));
+                    }
+                }
+            }
+
+            return !Boolean.FALSE.equals(payload.get("hasNext"));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addPending(List<Object> pendingList) {
+            for (Object entry : pendingList) {
+                if (entry instanceof Map<?, ?> map && map.get("id") != null && map.get("path") instanceof List<?> pendingPath) {
+                    pending.put(map.get("id").toString(), absolute((List<Object>) pendingPath));
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void apply(Map<String, Object> entry) throws IOException {
+            addErrors(entry.get("errors"));
+
+            List<Object> target;
+            boolean pathBased = entry.get("path") instanceof List<?>;
+            if (pathBased) {
+                target = absolute((List<Object>) entry.get("path"));
+            } else {
+                List<Object> base = pending.get(String.valueOf(entry.get("id")));
+                if (base == null) {
+                    throw new IOException("Invalid incremental response, unknown pending id '" + entry.get("id") + "'");
+                }
+                target = new ArrayList<>(base);
+                if (entry.get("subPath") instanceof List<?> subPath) {
+                    target.addAll(subPath);
+                }
+            }
+
+            if (entry.get("items") instanceof List<?> items) {
+                // with the path-based format, the path ends with the index of the first item
+                if (pathBased && !target.isEmpty() && target.getLast() instanceof Number) {
+                    target.removeLast();
+                }
+                this.append(target, (List<Object>) items);
+            } else if (entry.get("data") instanceof Map<?, ?> data) {
+                this.merge(target, (Map<String, Object>) data);
+            }
+        }
+
+        /**
+         * Append streamed items to the list at {@code target}, an absolute path from the response root.
+         */
+        @SuppressWarnings("unchecked")
+        private void append(List<Object> target, List<Object> items) throws IOException {
+            if (!startsWith(target, path)) {
+                // outside of the extracted value
+                return;
+            }
+
+            List<Object> relative = target.subList(path.size(), target.size());
+            if (rowList && relative.isEmpty()) {
+                for (Object item : items) {
+                    held.add(new Row(nextIndex++, item));
+                }
+                return;
+            }
+
+            if (this.resolve(relative) instanceof List<?> list) {
+                ((List<Object>) list).addAll(items);
+            }
+        }
+
+        /**
+         * Merge a deferred fragment into the object at {@code target}, an absolute path from the response root.
+         */
+        @SuppressWarnings("unchecked")
+        private void merge(List<Object> target, Map<String, Object> data) throws IOException {
+            if (startsWith(target, path)) {
+                if (this.resolve(target.subList(path.size(), target.size())) instanceof Map<?, ?> map) {
+                    mergeInto(map, data);
+                }
+                return;
+            }
+
+            if (!startsWith(path, target)) {
+                // outside of the extracted value
+                return;
+            }
+
+            // the fragment is deferred on an ancestor of the extracted value: only its part under the extracted path is kept
+            Object fragment = ResponseReader.valueAt(data, path.subList(target.size(), path.size()));
+            if (fragment == null) {
+                return;
+            }
+
+            if (!rowList) {
+                value = value == null ? fragment : mergeValue(value, fragment);
+                return;
+            }
+
+            if (fragment instanceof List<?> list) {
+                for (int index = 0; index < list.size(); index++) {
+                    Row row = this.row(index);
+                    row.value = mergeValue(row.value, list.get(index));
+                }
+            }
+        }
+
+        /**
+         * The value at a path relative to the extracted value, the first segment being a row index when rows are held.
+         */
+        private Object resolve(List<Object> relative) throws IOException {
+            if (!rowList) {
+                return ResponseReader.valueAt(value, normalize(relative));
+            }
+
+            if (relative.isEmpty() || !(relative.getFirst() instanceof Number index)) {
+                return null;
+            }
+
+            return ResponseReader.valueAt(this.row(index.intValue()).value, normalize(relative.subList(1, relative.size())));
+        }
+
+        private Row row(int index) throws IOException {
+            for (Row row : held) {
+                if (row.index == index) {
+                    return row;
+                }
+            }
+
+            throw new IOException("Invalid incremental response, row " + index + " at " + path + " was already complete when a deferred result for it arrived");
+        }
+
+        /**
+         * Hand over the held rows in order, up to the first one still waiting for a pending result, or all of them at the end of the response.
+         */
+        private void flush(boolean complete) throws IOException {
+            if (consumer == null) {
+                return;
+            }
+
+            if (!rowList) {
+                if (complete && value != null) {
+                    consumer.accept(value);
+                    written++;
+                }
+                return;
+            }
+
+            while (!held.isEmpty() && (complete || !this.isPending(held.peekFirst().index))) {
+                consumer.accept(held.removeFirst().value);
+                written++;
+            }
+        }
+
+        private boolean isPending(int index) {
+            if (!announced) {
+                // the path-based format does not tell what is still pending
+                return true;
+            }
+
+            List<Object> rowPath = new ArrayList<>(path);
+            rowPath.add(index);
+            for (List<Object> pendingPath : pending.values()) {
+                // a stream of the rows themselves only appends new rows
+                boolean rowStream = pendingPath.size() == path.size() && startsWith(pendingPath, path);
+                if ((!rowStream && startsWith(rowPath, pendingPath)) || startsWith(pendingPath, rowPath)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void addErrors(Object partErrors) {
+            if (partErrors instanceof Collection<?> collection) {
+                errors.addAll(collection);
+            } else if (partErrors != null) {
+                errors.add(partErrors);
+            }
+        }
+    }
+
+    private static final class Row {
+        private final int index;
+
+        private Object value;
+
+        private Row(int index, Object value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Path from the response root of a path relative to {@code data}, with numeric segments as integers like {@link ResponseReader#path(String)}.
+     */
+    private static List<Object> absolute(List<Object> dataPath) {
+        List<Object> absolute = new ArrayList<>(dataPath.size() + 1);
+        absolute.add("data");
+        absolute.addAll(normalize(dataPath));
+
+        return absolute;
+    }
+
+    private static List<Object> normalize(List<Object> segments) {
+        return segments.stream()
+            .map(segment -> segment instanceof Number number ? (Object) number.intValue() : segment)
+            .toList();
+    }
+
+    private static boolean startsWith(List<Object> path, List<Object> prefix) {
+        if (path.size() < prefix.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.size(); i++) {
+            Object a = path.get(i);
+            Object b = prefix.get(i);
+            boolean equal = a instanceof Number x && b instanceof Number y ? x.intValue() == y.intValue() : a.equals(b);
+            if (!equal) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mergeInto(Map<?, ?> target, Map<String, Object> source) {
+        Map<String, Object> map = (Map<String, Object>) target;
+        source.forEach((key, value) -> map.put(key, map.containsKey(key) ? mergeValue(map.get(key), value) : value));
+    }
+
+    /**
+     * Merge a deferred value into an existing one: objects member by member, lists of the same size element by element.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object mergeValue(Object existing, Object incoming) {
+        if (existing instanceof Map<?, ?> target && incoming instanceof Map<?, ?> source) {
+            mergeInto(target, (Map<String, Object>) source);
+            return target;
+        }
+
+        if (existing instanceof List<?> target && incoming instanceof List<?> source && target.size() == source.size()) {
+            List<Object> list = (List<Object>) target;
+            for (int i = 0; i < list.size(); i++) {
+                list.set(i, mergeValue(list.get(i), source.get(i)));
+            }
+            return list;
+        }
+
+        return incoming;
+    }
+}
@@ -0,0 +1,203 @@
+package io.kestra.plugin.graphql;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import io.kestra.core.http.client.configurations.HttpConfiguration;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.models.tasks.Task;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+
+import graphql.introspection.IntrospectionQuery;
+import graphql.introspection.IntrospectionResultToSchema;
+import graphql.schema.idl.SchemaPrinter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Fetch the schema of a GraphQL endpoint",
+    description = "Runs the introspection query against `uri` and returns the schema as SDL and as the JSON introspection result. " +
+        "The schema is kept in the KV store of the flow namespace, keyed by endpoint and by the `Authorization`, `Proxy-Authorization` and `Cookie` headers, " +
+        "so that the flows of the namespace calling the endpoint as the same user share it: " +
+        "it is reused without any request for `cacheTtl`, then revalidated with `If-None-Match`/`If-Modified-Since` when the server sends validators."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Fetch the schema of an endpoint at most once a day",
+            full = true,
+            code = """
+                id: graphql_introspect
+                namespace: company.team
+
+                tasks:
+                  - id: schema
+                    type: io.kestra.plugin.graphql.Introspect
+                    uri: https://example.com/graphql
+                    headers:
+                      Authorization: "Bearer {{ secret('API_TOKEN') }}"
+                    cacheTtl: P1D
+                """
+        )
+    }
+)
+public class Introspect extends Task implements RunnableTask<Introspect.Output> {
+    @Schema(
+        title = "The fully-qualified URI of the GraphQL endpoint"
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> uri;
+
+    @Builder.Default
+    @Schema(
+        title = "HTTP method",
+        description = "Defaults to `POST`; see the `Request` task."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> method = Property.ofValue("POST");
+
+    @Schema(
+        title = "HTTP headers of the request"
+    )
+    @PluginProperty(group = "connection")
+    private Property<Map<CharSequence, CharSequence>> headers;
+
+    @Schema(
+        title = "HTTP client options"
+    )
+    @PluginProperty(group = "connection")
+    private HttpConfiguration options;
+
+    @Builder.Default
+    @Schema(
+        title = "Duration the cached schema is used without any request",
+        description = "Once expired, the schema is revalidated with a conditional request, or fetched again when the server sends no validators; defaults to 1 hour."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Duration> cacheTtl = Property.ofValue(Duration.ofHours(1));
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Output run(RunContext runContext) throws Exception {
+        String renderedUri = runContext.render(this.uri).as(String.class).orElseThrow();
+        Duration renderedTtl = runContext.render(this.cacheTtl).as(Duration.class).orElse(Duration.ofHours(1));
+
+        String key = SchemaCache.key(renderedUri, runContext.render(this.headers).asMap(CharSequence.class, CharSequence.class));
+        Optional<Map<String, Object>> stored = SchemaCache.get(runContext, key);
+        // the content is only needed to write the outputs, a head without it is fetched again
+        Optional<Map<String, Object>> content = stored.flatMap(head -> SchemaCache.content(runContext, key, head));
+        if (content.isEmpty()) {
+            stored = Optional.empty();
+        }
+        boolean cached = stored.isPresent() && SchemaCache.isFresh(stored.get(), renderedTtl);
+        boolean notModified = false;
+
+        Map<String, Object> schema;
+        String sdl;
+        if (cached) {
+            runContext.metric(Counter.of("cache.hit", 1));
+            schema = (Map<String, Object>) content.get().get("schema");
+            sdl = (String) content.get().get("sdl");
+        } else {
+            runContext.metric(Counter.of("cache.miss", 1));
+            Request.Output output = this.request(runContext, ConditionalRequests.headers(stored.orElse(null))).run(runContext);
+            notModified = stored.isPresent() && output.getCode() != null && output.getCode() == ConditionalRequests.NOT_MODIFIED;
+
+            Map<String, Object> validators = ConditionalRequests.validators(output.getHeaders());
+            if (notModified) {
+                schema = (Map<String, Object>) content.get().get("schema");
+                sdl = (String) content.get().get("sdl");
+                // a 304 may omit the validators, the stored ones still apply then
+                if (validators.isEmpty()) {
+                    validators = SchemaCache.validators(stored.get());
+                }
+                // a revalidation only refreshes `checkedAt`, the version and the content stay the same
+                SchemaCache.revalidated(runContext, key, stored.get(), validators);
+            } else {
+                if (!(output.getBody() instanceof Map<?, ?> body) || !(body.get("__schema") instanceof Map<?, ?>)) {
+                    throw new IllegalStateException("Invalid introspection response from '" + renderedUri + "', no `__schema` in the data");
+                }
+                schema = (Map<String, Object>) body;
+                sdl = new SchemaPrinter().print(new IntrospectionResultToSchema().createSchemaDefinition(schema));
+                SchemaCache.put(runContext, key, schema, sdl, validators);
+            }
+        }
+
+        File schemaFile = runContext.workingDir().createTempFile(".json").toFile();
+        JacksonMapper.ofJson().writeValue(schemaFile, schema);
+        File sdlFile = runContext.workingDir().createTempFile(".graphql").toFile();
+        Files.writeString(sdlFile.toPath(), sdl, StandardCharsets.UTF_8);
+
+        return Output.builder()
+            .uri(runContext.storage().putFile(schemaFile))
+            .sdlUri(runContext.storage().putFile(sdlFile))
+            .cached(cached)
+            .notModified(notModified)
+            .build();
+    }
+
+    /**
+     * The introspection request, revalidating the stored schema with {@code conditionalHeaders} when there are some.
+     */
+    private Request request(RunContext runContext, Map<String, String> conditionalHeaders) throws Exception {
+        Property<Map<CharSequence, CharSequence>> requestHeaders = this.headers;
+        if (!conditionalHeaders.isEmpty()) {
+            Map<CharSequence, CharSequence> merged = new HashMap<>(runContext.render(this.headers).asMap(CharSequence.class, CharSequence.class));
+            merged.putAll(conditionalHeaders);
+            requestHeaders = Property.ofValue(merged);
+        }
+
+        return Request.builder()
+            .id(this.getId())
+            .type(Request.class.getName())
+            .uri(this.uri)
+            .method(this.method)
+            .headers(requestHeaders)
+            .options(this.options)
+            .query(Property.ofValue(IntrospectionQuery.INTROSPECTION_QUERY))
+            .failOnGraphQLErrors(Property.ofValue(true))
+            .build();
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the introspection result",
+            description = "A JSON file in internal storage with the `data` of the introspection query, i.e. the `__schema` object."
+        )
+        private final URI uri;
+
+        @Schema(
+            title = "URI of the schema in SDL",
+            description = "A `.graphql` file in internal storage."
+        )
+        private final URI sdlUri;
+
+        @Schema(title = "Whether the schema was served from the cache without any request")
+        private final Boolean cached;
+
+        @Schema(title = "Whether the server answered `304 Not Modified` when revalidating the cached schema")
+        private final Boolean notModified;
+    }
+}
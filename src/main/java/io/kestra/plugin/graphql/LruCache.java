@@ -0,0 +1,44 @@
+package io.kestra.plugin.graphql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small LRU map shared by the worker, bounded by its number of entries.
+ * <p>
+ * Missing values are computed outside of the lock, which is only held to read or store an entry, so that a slow computation
+ * never blocks the other threads. Threads missing the same key at the same time may all compute it, the first value stored being kept.
+ * A computation returning null stores nothing, so that the value is computed again on the next call.
+ */
+final class LruCache<K, V> {
+    private final Map<K, V> entries;
+
+    LruCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    V get(K key, Function<K, V> compute) {
+        synchronized (entries) {
+            V value = entries.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        V computed = compute.apply(key);
+        if (computed == null) {
+            return null;
+        }
+
+        synchronized (entries) {
+            V existing = entries.putIfAbsent(key, computed);
+            return existing != null ? existing : computed;
+        }
+    }
+}
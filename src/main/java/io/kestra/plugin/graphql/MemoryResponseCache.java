@@ -0,0 +1,126 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * Per-worker LRU cache of {@link Request} outputs, sitting in front of the KV store {@link ResponseCache}.
+ * <p>
+ * Entries are kept serialized, which makes them immune to mutations by the caller and lets the cache be bounded by
+ * the total size of the entries rather than by their count. The bound defaults to 64 MiB and can be changed with the
+ * {@code kestra.plugin.graphql.memory-cache.max-bytes} system property of the worker.
+ */
+final class MemoryResponseCache {
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final MemoryResponseCache INSTANCE = new MemoryResponseCache(
+        Long.getLong("kestra.plugin.graphql.memory-cache.max-bytes", DEFAULT_MAX_BYTES)
+    );
+
+    private static final ObjectMapper MAPPER = JacksonMapper.ofJson();
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+
+    MemoryResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    static MemoryResponseCache instance() {
+        return INSTANCE;
+    }
+
+    @SuppressWarnings("unchecked")
+    Optional<Map<String, Object>> get(String scope, String key) throws IOException {
+        byte[] value;
+
+        synchronized (this) {
+            String entryKey = scope + "/" + key;
+            Entry entry = entries.get(entryKey);
+
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                remove(entryKey);
+                entry = null;
+            }
+
+            if (entry == null) {
+                return Optional.empty();
+            }
+
+            value = entry.value;
+        }
+
+        return Optional.of(MAPPER.readValue(value, Map.class));
+    }
+
+    /**
+     * Add an entry, evicting the least recently used ones to stay under the size bound.
+     *
+     * @return the number of entries evicted
+     */
+    long put(String scope, String key, Map<String, Object> value, long expiresAt) throws IOException {
+        byte[] serialized = MAPPER.writeValueAsBytes(value);
+        if (serialized.length > maxBytes) {
+            return 0;
+        }
+
+        synchronized (this) {
+            String entryKey = scope + "/" + key;
+            remove(entryKey);
+
+            entries.put(entryKey, new Entry(scope, serialized, expiresAt));
+            bytes += serialized.length;
+
+            long evictions = 0;
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                bytes -= eldest.getValue().value.length;
+                iterator.remove();
+                evictions++;
+            }
+
+            return evictions;
+        }
+    }
+
+    /**
+     * Drop every entry of a scope.
+     *
+     * @return the number of entries removed
+     */
+    synchronized long invalidate(String scope) {
+        long removed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.scope.equals(scope)) {
+                bytes -= entry.value.length;
+                iterator.remove();
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    private void remove(String entryKey) {
+        Entry removed = entries.remove(entryKey);
+        if (removed != null) {
+            bytes -= removed.value.length;
+        }
+    }
+
+    private record Entry(String scope, byte[] value, long expiresAt) {
+    }
+}
@@ -0,0 +1,183 @@
+package io.kestra.plugin.graphql;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits a {@code multipart/mixed} body into the bodies of its parts, each one being read straight from the response stream
+ * up to the next delimiter, without buffering a whole part.
+ */
+final class MultipartParts {
+    private final PushbackInputStream in;
+
+    private final byte[] delimiter;
+
+    private Part current;
+
+    private boolean done;
+
+    MultipartParts(InputStream body, String boundary) {
+        this.delimiter = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.in = new PushbackInputStream(new BufferedInputStream(body), delimiter.length);
+    }
+
+    /**
+     * The body of the next part, after its headers; null once the closing delimiter or the end of the stream is reached.
+     * The body returned by the previous call is skipped to its end if it was not fully read.
+     */
+    InputStream next() throws IOException {
+        if (current != null) {
+            current.skipToEnd();
+            current = null;
+        }
+        if (done || !this.skipToDelimiter()) {
+            done = true;
+            return null;
+        }
+
+        // the closing delimiter is followed by "--"
+        int first = in.read();
+        if (first == '-') {
+            int second = in.read();
+            if (second == '-' || second == -1) {
+                done = true;
+                return null;
+            }
+            in.unread(second);
+        }
+        if (first == -1) {
+            done = true;
+            return null;
+        }
+        if (first != '\n') {
+            this.readLine();
+        }
+
+        // the part headers end with an empty line
+        String header = this.readLine();
+        while (header != null && !header.isEmpty()) {
+            header = this.readLine();
+        }
+        if (header == null) {
+            done = true;
+            return null;
+        }
+
+        current = new Part();
+        return current;
+    }
+
+    private boolean skipToDelimiter() throws IOException {
+        boolean lineStart = true;
+        while (true) {
+            if (lineStart && this.matchDelimiter()) {
+                return true;
+            }
+
+            int b = in.read();
+            if (b == -1) {
+                return false;
+            }
+            lineStart = b == '\n';
+        }
+    }
+
+    /**
+     * Consume the delimiter if the stream is positioned on it, leave the stream untouched otherwise.
+     */
+    private boolean matchDelimiter() throws IOException {
+        byte[] read = new byte[delimiter.length];
+        int length = in.readNBytes(read, 0, read.length);
+        for (int i = 0; i < length; i++) {
+            if (read[i] != delimiter[i]) {
+                in.unread(read, 0, length);
+                return false;
+            }
+        }
+        if (length < delimiter.length) {
+            in.unread(read, 0, length);
+            return false;
+        }
+
+        return true;
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b = in.read();
+        if (b == -1) {
+            return null;
+        }
+        while (b != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+            b = in.read();
+        }
+
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Body of a part, ending before the line of the next delimiter, which is left in the stream for {@link #next()}.
+     */
+    private final class Part extends InputStream {
+        private boolean lineStart = true;
+
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (lineStart && matchDelimiter()) {
+                in.unread(delimiter);
+                ended = true;
+                return -1;
+            }
+
+            int b = in.read();
+            if (b == -1) {
+                ended = true;
+                return -1;
+            }
+            lineStart = b == '\n';
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+
+            int count = 0;
+            while (count < length) {
+                int b = this.read();
+                if (b == -1) {
+                    break;
+                }
+                buffer[offset + count++] = (byte) b;
+                // hand over what is available instead of blocking for a full buffer, as parts arrive over time
+                if (in.available() == 0) {
+                    break;
+                }
+            }
+
+            return count == 0 ? -1 : count;
+        }
+
+        void skipToEnd() throws IOException {
+            while (this.read() != -1) {
+                // skip the rest of the part
+            }
+        }
+
+        @Override
+        public void close() {
+            // the parts share the response stream, which is closed by its owner
+        }
+    }
+}
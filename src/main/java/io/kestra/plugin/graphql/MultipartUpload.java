@@ -0,0 +1,168 @@
+package io.kestra.plugin.graphql;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import io.kestra.core.http.HttpRequest;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * Request body of the <a href="https://github.com/jaydenseric/graphql-multipart-request-spec">GraphQL multipart request</a> specification.
+ * <p>
+ * The variables receiving a file are set to {@code null} in the {@code operations} part, the {@code map} part links each
+ * file part to its variable, and the files are streamed from internal storage one after the other, without being read in memory.
+ * Each file is only opened once the body is read up to it, so a body built without being sent holds no storage stream.
+ */
+final class MultipartUpload {
+    private MultipartUpload() {
+    }
+
+    /**
+     * Build the multipart body of an operation.
+     *
+     * @param operation the rendered operation, its variables are not modified
+     * @param files internal storage URIs by path of their variable, relative to {@code variables}, e.g. {@code file} or {@code files.0}
+     */
+    static HttpRequest.RequestBody body(RunContext runContext, Map<String, Object> operation, Map<String, String> files) throws IOException {
+        Map<String, Object> operations = new HashMap<>(operation);
+        Object variables = copy(operations.get("variables"));
+        if (variables == null) {
+            variables = new HashMap<String, Object>();
+        }
+        operations.put("variables", variables);
+
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        List<URI> uris = new ArrayList<>();
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            setNull(variables, path(file.getKey()));
+            map.put(String.valueOf(uris.size()), List.of("variables." + file.getKey()));
+            uris.add(URI.create(file.getValue()));
+        }
+
+        String boundary = "graphql-" + UUID.randomUUID();
+        List<InputStream> parts = new ArrayList<>();
+        parts.add(text(boundary, "operations", JacksonMapper.ofJson().writeValueAsString(operations)));
+        parts.add(text(boundary, "map", JacksonMapper.ofJson().writeValueAsString(map)));
+        for (int i = 0; i < uris.size(); i++) {
+            parts.add(bytes("--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"" + i + "\"; filename=\"" + filename(uris.get(i)) + "\"\r\n" +
+                "Content-Type: application/octet-stream\r\n\r\n"));
+            parts.add(new StorageInputStream(runContext, uris.get(i)));
+            parts.add(bytes("\r\n"));
+        }
+        parts.add(bytes("--" + boundary + "--\r\n"));
+
+        return HttpRequest.InputStreamRequestBody.builder()
+            .contentType("multipart/form-data; boundary=" + boundary)
+            .content(new SequenceInputStream(Collections.enumeration(parts)))
+            .build();
+    }
+
+    /**
+     * Internal storage file opened on its first read.
+     */
+    private static final class StorageInputStream extends InputStream {
+        private final RunContext runContext;
+
+        private final URI uri;
+
+        private InputStream in;
+
+        private StorageInputStream(RunContext runContext, URI uri) {
+            this.runContext = runContext;
+            this.uri = uri;
+        }
+
+        private InputStream in() throws IOException {
+            if (in == null) {
+                in = runContext.storage().getFile(uri);
+            }
+
+            return in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.in().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return this.in().read(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    private static InputStream text(String boundary, String name, String content) {
+        return bytes("--" + boundary + "\r\n" +
+            "Content-Disposition: form-data; name=\"" + name + "\"\r\n" +
+            "Content-Type: application/json\r\n\r\n" +
+            content + "\r\n");
+    }
+
+    private static InputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String filename(URI uri) {
+        String path = uri.getPath();
+
+        return path == null ? "file" : path.substring(path.lastIndexOf('/') + 1).replace("\"", "");
+    }
+
+    /**
+     * Deep copy of the rendered variables, so that setting file variables to {@code null} does not alter the task payload.
+     */
+    private static Object copy(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k.toString(), copy(v)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            return new ArrayList<>(list.stream().map(MultipartUpload::copy).toList());
+        }
+
+        return value;
+    }
+
+    /**
+     * Parse a dotted variable path as used in the {@code map} part, numeric segments being list indexes.
+     */
+    private static List<Object> path(String expression) {
+        List<Object> segments = new ArrayList<>();
+        for (String segment : expression.trim().split("\\.")) {
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("Invalid upload variable path '" + expression + "'");
+            }
+            segments.add(segment.chars().allMatch(Character::isDigit) ? (Object) Integer.parseInt(segment) : segment);
+        }
+
+        return segments;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setNull(Object variables, List<Object> path) {
+        Object parent = ResponseReader.valueAt(variables, path.subList(0, path.size() - 1));
+        Object last = path.getLast();
+        if (last instanceof Integer index && parent instanceof List<?> list && index < list.size()) {
+            ((List<Object>) list).set(index, null);
+        } else if (parent instanceof Map<?, ?> map) {
+            ((Map<String, Object>) map).put(last.toString(), null);
+        } else {
+            throw new IllegalArgumentException("Invalid upload variable path, no object or list at '" + path.subList(0, path.size() - 1) + "' in the variables");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.kestra.plugin.graphql;
+
+import java.util.*;
+
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import graphql.validation.Validator;
+
+/**
+ * Helpers around GraphQL documents.
+ * <p>
+ * Parsed documents are memoized per query hash, and validation results per schema version and query hash, in small LRU caches shared by the worker.
+ * The hash of the query, from {@link PersistedQueries#hash(String)}, is computed once by the caller and passed in.
+ */
+final class Operations {
+    private static final int MAX_DOCUMENTS = 256;
+
+    private static final LruCache<String, Document> DOCUMENTS = new LruCache<>(MAX_DOCUMENTS);
+
+    private static final LruCache<String, List<String>> VALIDATIONS = new LruCache<>(MAX_DOCUMENTS);
+
+    private Operations() {
+    }
+
+    /**
+     * Parse a query document, reusing the last parsed documents.
+     *
+     * @throws InvalidSyntaxException if the document is not valid GraphQL
+     */
+    static Document parse(String query, String hash) {
+        return DOCUMENTS.get(hash, key -> Parser.parse(query));
+    }
+
+    /**
+     * Type of the operation that will be executed: the one named {@code operationName}, or the only one of the document.
+     * Empty when it can't be determined, for example when the document doesn't parse.
+     */
+    static Optional<OperationDefinition.Operation> type(String query, String hash, String operationName) {
+        Document document;
+        try {
+            document = parse(query, hash);
+        } catch (InvalidSyntaxException e) {
+            return Optional.empty();
+        }
+
+        List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class);
+
+        if (operationName != null) {
+            return operations.stream()
+                .filter(operation -> operationName.equals(operation.getName()))
+                .findFirst()
+                .map(OperationDefinition::getOperation);
+        }
+
+        return operations.size() == 1 ? Optional.of(operations.getFirst().getOperation()) : Optional.empty();
+    }
+
+    /**
+     * Validate a query document against a schema, reusing the result of the last validations of the same query on the same schema version.
+     *
+     * @return the syntax or validation errors, empty when the document is valid
+     */
+    static List<String> validate(GraphQLSchema schema, String schemaVersion, String query, String hash) {
+        return VALIDATIONS.get(schemaVersion + "/" + hash, key -> {
+            Document document;
+            try {
+                document = parse(query, hash);
+            } catch (InvalidSyntaxException e) {
+                return List.of(e.getMessage());
+            }
+
+            return new Validator().validateDocument(schema, document, Locale.ENGLISH).stream()
+                .map(ValidationError::getMessage)
+                .toList();
+        });
+    }
+}
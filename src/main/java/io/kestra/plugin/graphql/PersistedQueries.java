@@ -0,0 +1,77 @@
+package io.kestra.plugin.graphql;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+
+/**
+ * Helpers for the Automatic Persisted Queries (APQ) protocol.
+ * <p>
+ * The sha256 hash of each rendered query is memoized in a small LRU map shared by the worker,
+ * so repeated executions of the same document do not hash it again.
+ */
+final class PersistedQueries {
+    static final String NOT_FOUND_MESSAGE = "PersistedQueryNotFound";
+    static final String NOT_FOUND_CODE = "PERSISTED_QUERY_NOT_FOUND";
+
+    private static final int MAX_HASHES = 256;
+
+    private static final LruCache<String, String> HASHES = new LruCache<>(MAX_HASHES);
+
+    private PersistedQueries() {
+    }
+
+    static String hash(String query) {
+        return HASHES.get(query, PersistedQueries::sha256);
+    }
+
+    /**
+     * Copy the payload with the {@code persistedQuery} extension, keeping the query document only when {@code withQuery} is true.
+     */
+    static Map<String, Object> payload(Map<String, Object> payload, String hash, boolean withQuery) {
+        Map<String, Object> persisted = new HashMap<>(payload);
+        if (!withQuery) {
+            persisted.remove("query");
+        }
+
+        persisted.put("extensions", Map.of(
+            "persistedQuery", Map.of(
+                "version", 1,
+                "sha256Hash", hash
+            )
+        ));
+
+        return persisted;
+    }
+
+    /**
+     * Whether the GraphQL {@code errors} of a response report that the server does not know the hash.
+     */
+    static boolean isNotFound(Object errors) {
+        if (!(errors instanceof Collection<?> collection)) {
+            return false;
+        }
+
+        return collection.stream()
+            .filter(Map.class::isInstance)
+            .map(Map.class::cast)
+            .anyMatch(error -> NOT_FOUND_MESSAGE.equals(error.get("message")) ||
+                (error.get("extensions") instanceof Map<?, ?> extensions && NOT_FOUND_CODE.equals(extensions.get("code")))
+            );
+    }
+
+    /**
+     * Hex-encoded sha256 of a string, as used by APQ and reused for the other cache keys of the plugin.
+     */
+    static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8))
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.Publisher;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.conditions.ConditionContext;
+import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.triggers.*;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.utils.IdUtils;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Trigger a flow on GraphQL subscription events",
+    description = "Opens a GraphQL subscription over a WebSocket with the `graphql-transport-ws` protocol and creates one execution per event, or per micro-batch of events with `batchSize`. " +
+        "The connection is kept alive with protocol pings, and re-established with an exponential backoff when it drops, subscribing again; " +
+        "set `resumePath` to pass the last value seen to the new subscription. " +
+        "The WebSocket is opened with the HTTP client of the JDK, so the proxy, SSL and authentication options of the HTTP tasks are not available: " +
+        "pass credentials in `headers` or `connectionParams`."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Start a flow for every new review",
+            full = true,
+            code = """
+                id: graphql_subscription
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.data.reviewAdded.stars }} stars"
+
+                triggers:
+                  - id: reviews
+                    type: io.kestra.plugin.graphql.RealtimeTrigger
+                    uri: wss://example.com/graphql
+                    connectionParams:
+                      authorization: "Bearer {{ secret('API_TOKEN') }}"
+                    query: |
+                      subscription {
+                        reviewAdded {
+                          id
+                          stars
+                        }
+                      }
+                """
+        )
+    }
+)
+public class RealtimeTrigger extends AbstractTrigger implements RealtimeTriggerInterface, TriggerOutput<RealtimeTrigger.Output> {
+    private static final Duration INITIAL_RECONNECT_DELAY = Duration.ofSeconds(1);
+
+    private static final Duration CONNECT_TIMEOUT = SharedHttpClient.CONNECT_TIMEOUT;
+
+    @Schema(
+        title = "WebSocket URI of the GraphQL endpoint",
+        description = "A `ws://` or `wss://` URI."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> uri;
+
+    @Schema(
+        title = "GraphQL subscription",
+        description = "Rendered from the trigger context before subscribing."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> query;
+
+    @Schema(
+        title = "Variables for the subscription",
+        description = "Rendered GraphQL variables; supports nested objects."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> variables;
+
+    @Schema(
+        title = "Operation name to run",
+        description = "Required when the query document defines multiple operations."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> operationName;
+
+    @Schema(
+        title = "HTTP headers of the WebSocket handshake"
+    )
+    @PluginProperty(group = "connection")
+    private Property<Map<String, String>> headers;
+
+    @Schema(
+        title = "Payload of the `connection_init` message",
+        description = "Usually carries the credentials expected by the server."
+    )
+    @PluginProperty(group = "connection")
+    private Property<Map<String, Object>> connectionParams;
+
+    @Builder.Default
+    @Schema(
+        title = "Interval between keepalive pings",
+        description = "A protocol `ping` is sent when nothing was received for this duration, and the connection is re-established when nothing is received for twice this duration; defaults to 15 seconds."
+    )
+    @PluginProperty(group = "reliability")
+    private Property<Duration> keepAlive = Property.ofValue(Duration.ofSeconds(15));
+
+    @Builder.Default
+    @Schema(
+        title = "Maximum delay between reconnection attempts",
+        description = "Attempts start after 1 second and the delay doubles up to this value; defaults to 1 minute."
+    )
+    @PluginProperty(group = "reliability")
+    private Property<Duration> maxReconnectDelay = Property.ofValue(Duration.ofMinutes(1));
+
+    @Builder.Default
+    @Schema(
+        title = "Maximum number of events per execution",
+        description = "Events received within `batchDuration` are grouped in a single execution, up to this number; defaults to 1, one execution per event."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Integer> batchSize = Property.ofValue(1);
+
+    @Builder.Default
+    @Schema(
+        title = "Maximum time to wait to fill a micro-batch",
+        description = "Only used when `batchSize` is greater than 1; defaults to 1 second."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Duration> batchDuration = Property.ofValue(Duration.ofSeconds(1));
+
+    @Schema(
+        title = "Dotted path of the resume value in the event data",
+        description = "When set, the value found at this path in the last event is passed in `resumeVariable` when subscribing again after a disconnection, " +
+            "so that a server supporting it only sends the events that were missed. Path from the `data` of the event, e.g. `reviewAdded.id`."
+    )
+    @PluginProperty(group = "reliability")
+    private Property<String> resumePath;
+
+    @Builder.Default
+    @Schema(
+        title = "Variable receiving the resume value",
+        description = "Only used with `resumePath`; defaults to `after`."
+    )
+    @PluginProperty(group = "reliability")
+    private Property<String> resumeVariable = Property.ofValue("after");
+
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean isActive = new AtomicBoolean(true);
+
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    private final CountDownLatch waitForTermination = new CountDownLatch(1);
+
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+
+    @Override
+    public Publisher<Execution> evaluate(ConditionContext conditionContext, TriggerContext context) throws Exception {
+        RunContext runContext = conditionContext.getRunContext();
+        int renderedBatchSize = runContext.render(this.batchSize).as(Integer.class).orElse(1);
+
+        Flux<Output> outputs;
+        if (renderedBatchSize > 1) {
+            Duration renderedBatchDuration = runContext.render(this.batchDuration).as(Duration.class).orElse(Duration.ofSeconds(1));
+            outputs = this.events(runContext)
+                .bufferTimeout(renderedBatchSize, renderedBatchDuration)
+                .map(events -> Output.builder()
+                    .data(events.getLast().getData())
+                    .errors(events.getLast().getErrors())
+                    .events(events.stream().map(event -> {
+                        Map<String, Object> map = new HashMap<>();
+                        map.put("data", event.getData());
+                        map.put("errors", event.getErrors());
+                        return map;
+                    }).toList())
+                    .build()
+                );
+        } else {
+            outputs = this.events(runContext);
+        }
+
+        return outputs.map(output -> TriggerService.generateRealtimeExecution(this, conditionContext, context, output));
+    }
+
+    /**
+     * Events of the subscription, received on a virtual thread that reconnects until the trigger is stopped or the server completes the subscription.
+     */
+    private Flux<Output> events(RunContext runContext) {
+        return Flux.create(
+            sink -> Thread.ofVirtual().name("graphql-subscription-" + this.getId()).start(() -> {
+                try {
+                    this.subscribe(runContext, sink);
+                } catch (Exception e) {
+                    sink.error(e);
+                } finally {
+                    this.waitForTermination.countDown();
+                }
+            }),
+            FluxSink.OverflowStrategy.BUFFER
+        );
+    }
+
+    private void subscribe(RunContext runContext, FluxSink<Output> sink) throws Exception {
+        URI renderedUri = URI.create(runContext.render(this.uri).as(String.class).orElseThrow());
+        Map<String, String> renderedHeaders = runContext.render(this.headers).asMap(String.class, String.class);
+        Map<String, Object> renderedConnectionParams = runContext.render(this.connectionParams).asMap(String.class, Object.class);
+        Duration renderedKeepAlive = runContext.render(this.keepAlive).as(Duration.class).orElse(Duration.ofSeconds(15));
+        Duration renderedMaxReconnectDelay = runContext.render(this.maxReconnectDelay).as(Duration.class).orElse(Duration.ofMinutes(1));
+        List<Object> renderedResumePath = this.resumePath == null ? null : ResponseReader.path(runContext.render(this.resumePath).as(String.class).orElseThrow());
+        String renderedResumeVariable = runContext.render(this.resumeVariable).as(String.class).orElse("after");
+
+        Map<String, Object> payload = GraphQLPayload.render(runContext, this.query, this.variables, this.operationName);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> subscriptionVariables = new HashMap<>(Optional.ofNullable((Map<String, Object>) payload.get("variables")).orElse(Map.of()));
+
+        AtomicReference<Object> resume = new AtomicReference<>(subscriptionVariables.get(renderedResumeVariable));
+        Duration delay = INITIAL_RECONNECT_DELAY;
+
+        HttpClient client = SharedHttpClient.instance();
+        while (this.isActive.get()) {
+            if (resume.get() != null) {
+                subscriptionVariables.put(renderedResumeVariable, resume.get());
+            }
+            payload.put("variables", subscriptionVariables);
+
+            TransportWsProtocol protocol = null;
+            try {
+                protocol = this.connect(client, renderedUri, renderedHeaders, renderedConnectionParams, payload, renderedKeepAlive, (data, errors) -> {
+                    sink.next(Output.builder().data(data).errors(errors).build());
+
+                    if (renderedResumePath != null) {
+                        Object value = ResponseReader.valueAt(data, renderedResumePath);
+                        if (value != null) {
+                            resume.set(value);
+                        }
+                    }
+                });
+
+                if (protocol.isCompleted()) {
+                    runContext.logger().info("GraphQL subscription completed by the server");
+                    break;
+                }
+            } catch (TransportWsProtocol.SubscriptionException e) {
+                // the server rejected the subscription itself, it is not retried
+                throw e;
+            } catch (Exception e) {
+                if (!this.isActive.get()) {
+                    break;
+                }
+                runContext.logger().warn("GraphQL subscription disconnected, reconnecting in {}", delay, e);
+            }
+
+            if (protocol != null && protocol.isAcknowledged()) {
+                delay = INITIAL_RECONNECT_DELAY;
+            }
+
+            if (this.isActive.get()) {
+                this.backoff(delay);
+                delay = delay.multipliedBy(2).compareTo(renderedMaxReconnectDelay) > 0 ? renderedMaxReconnectDelay : delay.multipliedBy(2);
+            }
+        }
+
+        sink.complete();
+    }
+
+    /**
+     * Open one WebSocket connection and subscribe, returning when the connection is closed.
+     */
+    private TransportWsProtocol connect(
+        HttpClient client,
+        URI uri,
+        Map<String, String> headers,
+        Map<String, Object> connectionParams,
+        Map<String, Object> payload,
+        Duration keepAlive,
+        TransportWsProtocol.EventConsumer consumer
+    ) throws Exception {
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        AtomicReference<TransportWsProtocol> protocol = new AtomicReference<>();
+
+        WebSocket.Builder builder = client.newWebSocketBuilder()
+            .subprotocols(TransportWsProtocol.SUBPROTOCOL)
+            .connectTimeout(CONNECT_TIMEOUT);
+        headers.forEach(builder::header);
+
+        CompletableFuture<WebSocket> opening = builder.buildAsync(uri, new WebSocket.Listener() {
+            private final StringBuilder message = new StringBuilder();
+
+            @Override
+            public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                message.append(data);
+                if (last && protocol.get() != null) {
+                    try {
+                        protocol.get().onMessage(message.toString());
+                        // the server may keep the connection open after completing the subscription
+                        if (protocol.get().isCompleted()) {
+                            closed.complete(null);
+                        }
+                    } catch (Exception e) {
+                        closed.completeExceptionally(e);
+                    }
+                    message.setLength(0);
+                }
+                webSocket.request(1);
+                return null;
+            }
+
+            @Override
+            public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+                if (protocol.get() != null && protocol.get().isCompleted()) {
+                    closed.complete(null);
+                } else {
+                    closed.completeExceptionally(new IOException("WebSocket closed by the server with status " + statusCode + ": " + reason));
+                }
+                return null;
+            }
+
+            @Override
+            public void onError(WebSocket webSocket, Throwable error) {
+                closed.completeExceptionally(error);
+            }
+        });
+
+        this.await(opening, CONNECT_TIMEOUT);
+        if (!opening.isDone()) {
+            opening.thenAccept(WebSocket::abort);
+            throw new IOException("Trigger stopped while connecting");
+        }
+        WebSocket webSocket = opening.join();
+
+        TransportWsProtocol session = new TransportWsProtocol(connectionParams, payload, IdUtils.create(), text -> {
+            // the JDK WebSocket does not allow a send before the previous one completed
+            synchronized (webSocket) {
+                webSocket.sendText(text, true).join();
+            }
+        }, consumer);
+        protocol.set(session);
+
+        try {
+            session.init();
+
+            while (this.isActive.get() && !session.isCompleted()) {
+                try {
+                    this.await(closed, keepAlive);
+                    break;
+                } catch (ExecutionException e) {
+                    throw cause(e);
+                } catch (TimeoutException e) {
+                    long idle = System.currentTimeMillis() - session.lastMessageAt();
+                    if (idle > keepAlive.multipliedBy(2).toMillis()) {
+                        throw new IOException("No message received from the server for " + Duration.ofMillis(idle) + ", the connection is considered lost");
+                    }
+                    session.ping();
+                }
+            }
+
+            if (closed.isCompletedExceptionally()) {
+                try {
+                    closed.get();
+                } catch (ExecutionException e) {
+                    throw cause(e);
+                }
+            }
+        } finally {
+            if (!webSocket.isOutputClosed()) {
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").orTimeout(5, TimeUnit.SECONDS).exceptionally(e -> null);
+            }
+            webSocket.abort();
+        }
+
+        return session;
+    }
+
+    /**
+     * Wait for {@code future} up to {@code timeout}, returning as soon as the trigger is stopped.
+     */
+    private void await(CompletableFuture<?> future, Duration timeout) throws Exception {
+        CompletableFuture.anyOf(future, this.stopped).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The failure a future completed with, so that it can be told apart by its type.
+     */
+    private static Exception cause(ExecutionException e) {
+        return e.getCause() instanceof Exception cause ? cause : e;
+    }
+
+    /**
+     * Wait for {@code delay} before reconnecting, returning as soon as the trigger is stopped.
+     */
+    private void backoff(Duration delay) throws Exception {
+        try {
+            this.stopped.get(delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the delay elapsed
+        }
+    }
+
+    @Override
+    public void kill() {
+        stop(true);
+    }
+
+    @Override
+    public void stop() {
+        stop(false);
+    }
+
+    private void stop(boolean wait) {
+        if (!isActive.compareAndSet(true, false)) {
+            return;
+        }
+
+        // wakes up the subscription thread, whether it waits for the server or before reconnecting
+        this.stopped.complete(null);
+
+        if (wait) {
+            try {
+                this.waitForTermination.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "GraphQL data of the event",
+            description = "Data of the last event when events are grouped with `batchSize`."
+        )
+        private final Object data;
+
+        @Schema(
+            title = "GraphQL errors of the event",
+            description = "Errors of the last event when events are grouped with `batchSize`."
+        )
+        private final Object errors;
+
+        @Schema(
+            title = "Events of the micro-batch",
+            description = "Only set when `batchSize` is greater than 1, each event with its `data` and `errors`."
+        )
+        private final List<Map<String, Object>> events;
+    }
+}
@@ -1,31 +1,48 @@
 package io.kestra.plugin.graphql;
 
-import java.io.IOException;
+import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URLEncoder;
 import java.net.http.HttpHeaders;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.http.HttpRequest;
 import io.kestra.core.http.HttpResponse;
 import io.kestra.core.http.client.HttpClient;
 import io.kestra.core.models.annotations.Example;
 import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.AbstractMetricEntry;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.models.tasks.common.EncryptedString;
+import io.kestra.core.models.tasks.common.FetchType;
 import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
 import io.kestra.core.serializers.JacksonMapper;
 import io.kestra.plugin.core.http.AbstractHttp;
 
+import graphql.language.OperationDefinition;
+import graphql.schema.GraphQLSchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
 
+import static io.kestra.core.utils.Rethrow.throwConsumer;
 import static io.kestra.core.utils.Rethrow.throwFunction;
 import io.kestra.core.models.annotations.PluginProperty;
 
@@ -36,7 +53,10 @@ import io.kestra.core.models.annotations.PluginProperty;
 @NoArgsConstructor
 @Schema(
     title = "Execute a GraphQL HTTP request",
-    description = "Sends a rendered GraphQL query or mutation over HTTP (default POST). Supports optional variables and operationName, can encrypt the response body when `encryptBody` is true, and only fails on GraphQL errors if `failOnGraphQLErrors` is enabled."
+    description = "Sends a rendered GraphQL query or mutation over HTTP (default POST). Supports optional variables and operationName, can encrypt the response body when `encryptBody` is true, and only fails on GraphQL errors if `failOnGraphQLErrors` is enabled. " +
+        "Set `fetchType: STORE` to stream large responses straight to internal storage instead of keeping them in the task outputs. " +
+        "All the HTTP calls of a run share one client and its connection pool, but the client is not reused across runs, as it is bound to the run for its options, logs and metrics: " +
+        "each run opens its own connections, so prefer one run doing more work (`paginationPath`, `variablesFrom`) over many short runs against the same endpoint."
 )
 @Plugin(
     examples = {
@@ -109,10 +129,68 @@ import io.kestra.core.models.annotations.PluginProperty;
                       }
                     operationName: "GetUser"
                 """
+        ),
+        @Example(
+            title = "Stream a large result set to internal storage",
+            full = true,
+            code = """
+                id: graphql_store
+                namespace: company.team
+
+                tasks:
+                  - id: export_issues
+                    type: io.kestra.plugin.graphql.Request
+                    uri: https://example.com/graphql
+                    query: |
+                      query {
+                        repository(name: "kestra") {
+                          issues(first: 100) {
+                            nodes {
+                              number
+                              title
+                            }
+                          }
+                        }
+                      }
+                    fetchType: STORE
+                    extract: data.repository.issues.nodes
+                """
+        ),
+        @Example(
+            title = "Fetch every page of a Relay connection",
+            full = true,
+            code = """
+                id: graphql_pagination
+                namespace: company.team
+
+                tasks:
+                  - id: all_issues
+                    type: io.kestra.plugin.graphql.Request
+                    uri: https://example.com/graphql
+                    query: |
+                      query Issues($after: String) {
+                        repository(name: "kestra") {
+                          issues(first: 100, after: $after) {
+                            nodes {
+                              number
+                              title
+                            }
+                            pageInfo {
+                              hasNextPage
+                              endCursor
+                            }
+                          }
+                        }
+                      }
+                    paginationPath: data.repository.issues
+                    cursorVariable: after
+                """
         )
     }
 )
 public class Request extends AbstractHttp implements RunnableTask<Request.Output> {
+    private static final ObjectWriter GET_PARAMETER_WRITER = JacksonMapper.ofJson().writer()
+        .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
 
     @Builder.Default
     @Schema(
@@ -145,6 +223,11 @@ public class Request extends AbstractHttp implements RunnableTask<Request.Output
     private Property<String> operationName;
 
     @Builder.Default
+    @Schema(
+        title = "HTTP method",
+        description = "Defaults to `POST` with a JSON body. With `GET`, `query`, `operationName`, `variables` and `extensions` are sent as URL parameters so that CDNs and gateways can cache the response; " +
+            "combined with `persistedQuery`, only the query hash is put in the URL."
+    )
     @PluginProperty(group = "advanced")
     protected Property<String> method = Property.ofValue("POST");
 
@@ -156,40 +239,252 @@ public class Request extends AbstractHttp implements RunnableTask<Request.Output
     @PluginProperty(group = "reliability")
     private Property<Boolean> failOnGraphQLErrors = Property.ofValue(false);
 
+    @Builder.Default
+    @Schema(
+        title = "How to handle the response",
+        description = "`FETCH` (default) returns the value selected by `extract` in the `body` output; `FETCH_ONE` returns only its first element when it is an array. " +
+            "`STORE` writes the value selected by `extract` as an ION file in internal storage, returning only its URI and row count. " +
+            "`NONE` discards the response data."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<FetchType> fetchType = Property.ofValue(FetchType.FETCH);
+
+    @Builder.Default
+    @Schema(
+        title = "Path of the value to extract from the response",
+        description = "A dotted path or simple JSONPath from the root of the response, e.g. `data.repository.issues.nodes` or `$.data.users[0].name`; defaults to `data`. " +
+            "It is evaluated while the response is parsed, so only the selected sub-tree is materialized and kept in the outputs. " +
+            "With `fetchType: STORE`, an array is written as one row per element; any other value is written as a single row. " +
+            "Member names and array indexes are supported, wildcards and filters are not."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> extract = Property.ofValue("data");
+
+    @Builder.Default
+    @Schema(
+        title = "Use Automatic Persisted Queries",
+        description = "When true, the request first sends only the sha256 hash of the query in `extensions.persistedQuery`, " +
+            "and sends the full document again only if the server answers `PersistedQueryNotFound` (Apollo APQ protocol). " +
+            "This greatly reduces the payload of large queries sent repeatedly; defaults to false."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> persistedQuery = Property.ofValue(false);
+
+    @Builder.Default
+    @Schema(
+        title = "Include response extensions",
+        description = "When true, the `extensions` member of the response (tracing, cost, ...) is returned in the `extensions` output; it is skipped otherwise. Defaults to false."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> includeExtensions = Property.ofValue(false);
+
+    @Builder.Default
+    @Schema(
+        title = "Validate that the response only contains defined Unicode characters",
+        description = "Validation runs while the response is decoded, in the same pass as the JSON parsing, and fails the task with the offset of the first offending character. " +
+            "Disable it to parse trusted responses straight from bytes; defaults to true."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> validateUnicode = Property.ofValue(true);
+
+    @Schema(
+        title = "Cache the response for this duration",
+        description = "When set, the response of queries is cached in the KV store of the flow namespace, keyed by a hash of the rendered request " +
+            "(URI, method, headers, query, variables and operation name), and served from there until it expires. " +
+            "Mutations and subscriptions are never cached, nor are responses with GraphQL errors. " +
+            "Only applies to a single request returning its result in `body`: not with `fetchType: STORE`, `paginationPath`, `variablesFrom` or `encryptBody`. " +
+            "Responses are also kept in a per-worker in-memory cache bounded by size (64 MiB by default, `kestra.plugin.graphql.memory-cache.max-bytes` system property), checked before the KV store. " +
+            "Hits and misses are reported in the `cache.hit` and `cache.miss` metrics, and in `cache.memory.hit`, `cache.memory.miss` and `cache.memory.evictions` for the in-memory cache."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Duration> cacheTtl;
+
+    @Builder.Default
+    @Schema(
+        title = "Invalidate the response cache of the namespace",
+        description = "When true, every cached response of the flow namespace is dropped before the request is sent, from the KV store and from the in-memory cache of the worker running the task. " +
+            "Other workers keep their in-memory entries until they expire. Only used with `cacheTtl`; defaults to false."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> invalidateCache = Property.ofValue(false);
+
+    @Builder.Default
+    @Schema(
+        title = "Send conditional requests",
+        description = "When true, the `ETag` and `Last-Modified` headers of the last successful response are stored in the KV store of the flow namespace, per rendered request and for `validatorsTtl`, " +
+            "and sent back as `If-None-Match` and `If-Modified-Since`. When the server answers `304 Not Modified`, the previous output is returned with `notModified` set, " +
+            "without downloading nor parsing the response again. Servers usually only send validators for `GET` requests. " +
+            "Only applies to a single request returning its result in `body`: not with `fetchType: STORE`, `paginationPath`, `variablesFrom` or `encryptBody`; defaults to false."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> conditionalRequests = Property.ofValue(false);
+
+    @Builder.Default
+    @Schema(
+        title = "Keep the validators of conditional requests for this duration",
+        description = "The stored `ETag` and `Last-Modified` headers, and the output they validate, expire from the KV store once no successful response refreshed them for this duration. " +
+            "Only used with `conditionalRequests`; defaults to 7 days."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Duration> validatorsTtl = Property.ofValue(ConditionalRequests.DEFAULT_TTL);
+
+    @Builder.Default
+    @Schema(
+        title = "Compression of the request body",
+        description = "`GZIP` or `DEFLATE` compress the JSON body and set its `Content-Encoding`, which the server must support; defaults to `NONE`. " +
+            "Not applied to `GET` requests, which have no body. The sizes before and after compression are reported in the `request.uncompressed.bytes` and `request.bytes` metrics."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Compression> requestCompression = Property.ofValue(Compression.NONE);
+
+    @Builder.Default
+    @Schema(
+        title = "Accept compressed responses",
+        description = "When true, `Accept-Encoding: gzip, deflate` is sent unless set in `headers`, and compressed responses are decoded while they are streamed. " +
+            "When the response reaches the task still encoded, its sizes are reported in the `response.bytes` and `response.uncompressed.bytes` metrics. Defaults to true."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> acceptCompressedResponses = Property.ofValue(true);
+
+    @Builder.Default
+    @Schema(
+        title = "Validate the query before sending it",
+        description = "When true, the rendered query is validated against the schema of `uri` cached in the KV store of the namespace by the `Introspect` task " +
+            "with the same `Authorization`, `Proxy-Authorization` and `Cookie` headers, " +
+            "and the task fails without sending anything when the query does not parse or does not match the schema. " +
+            "Each run reads the version of the cached schema, a small KV entry; the schema itself is only loaded and parsed once per version by the worker, " +
+            "and validation results are cached per query and schema version, so only the first run of a query pays for the validation. " +
+            "When no schema is cached, a warning is logged and the query is sent as is; defaults to false."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> validateQuery = Property.ofValue(false);
+
+    @Schema(
+        title = "Files to upload",
+        description = "Internal storage URIs (`kestra://...`) by path of the variable receiving them, e.g. `file` or `files.0`, sent with the GraphQL multipart request specification. " +
+            "The variables are set to null in the `operations` part and each file is streamed from internal storage as its own part, without being loaded in memory nor base64-encoded. " +
+            "The path must exist in `variables`, e.g. `files: [null, null]` for `files.0` and `files.1`. Not supported with `method: GET` nor `variablesFrom`. Some servers require a CSRF header for multipart requests, such as `Apollo-Require-Preflight: true`."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, String>> uploads;
+
+    @Builder.Default
+    @Schema(
+        title = "Accept incremental delivery",
+        description = "When true, the request accepts `multipart/mixed` responses, as sent by servers supporting the `@defer` and `@stream` directives. " +
+            "The parts are applied as they arrive: deferred fragments are merged at their path and streamed items appended to their list, and with `fetchType: STORE` rows are written as soon as they are complete. " +
+            "Not supported with `paginationPath`, `variablesFrom` nor `encryptBody`; defaults to false."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> incrementalDelivery = Property.ofValue(false);
+
+    @Schema(
+        title = "Variable sets to run the operation with",
+        description = "A list of variable sets, or the URI of an ION file in internal storage with one variable set per row. " +
+            "The operation is run once per variable set, each set being merged over `variables`, and the results are written in input order to an ION file " +
+            "with one row per set (`index`, `variables`, `data` and `errors`)."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Object> variablesFrom;
+
+    @Builder.Default
+    @Schema(
+        title = "Number of operations sent per HTTP request",
+        description = "Only used with `variablesFrom`. Operations are packed into JSON array requests of this size, which requires a server supporting array batching (Apollo Server, Hasura, ...). " +
+            "Set to 1 to send one plain operation per request; defaults to 50."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Integer> batchSize = Property.ofValue(50);
+
+    @Builder.Default
+    @Schema(
+        title = "Number of HTTP requests in flight",
+        description = "Only used with `variablesFrom`. Requests are sent concurrently on virtual threads, sharing the same HTTP client; defaults to 1. " +
+            "Combine with `batchSize: 1` to fan out one call per variable set against servers that do not support array batching."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Integer> concurrency = Property.ofValue(1);
+
+    @Builder.Default
+    @Schema(
+        title = "Keep results in input order",
+        description = "Only used with `variablesFrom`. When false, results are written as soon as their request completes, which avoids waiting on slow requests; " +
+            "each row keeps its input `index`. Defaults to true."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Boolean> ordered = Property.ofValue(true);
+
+    @Schema(
+        title = "Dotted path of a Relay connection to paginate",
+        description = "When set, the task follows the connection's `pageInfo { hasNextPage endCursor }` and sends one request per page, " +
+            "passing `endCursor` in the variable named by `cursorVariable`. The `nodes` (or `edges`) of every page are streamed to a single ION file in internal storage, " +
+            "whatever the `fetchType`. Path from the root of the response, e.g. `data.repository.issues`."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> paginationPath;
+
+    @Builder.Default
+    @Schema(
+        title = "Variable receiving the page cursor",
+        description = "Name of the GraphQL variable set to the previous page's `endCursor`; defaults to `after`. An initial value can be given in `variables`."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> cursorVariable = Property.ofValue("after");
+
+    @Schema(
+        title = "Maximum number of pages to fetch",
+        description = "Stops the pagination after this number of pages even if the connection reports more."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Integer> maxPages;
+
+    // initialized final fields are left out of the builder, and transient ones out of equals, hashCode and serialization
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final transient Object metricsLock = new Object();
+
     @Override
     protected HttpRequest request(RunContext runContext) throws IllegalVariableEvaluationException, URISyntaxException, IOException {
+        return this.request(runContext, this.payload(runContext));
+    }
 
+    /**
+     * Render the GraphQL payload ({@code query}, {@code variables} and {@code operationName}) sent as the request body.
+     */
+    protected Map<String, Object> payload(RunContext runContext) throws IllegalVariableEvaluationException {
+        return GraphQLPayload.render(runContext, this.query, this.variables, this.operationName);
+    }
+
+    /**
+     * Build the HTTP request for a payload, either a single operation map or a list of operations for array batching.
+     */
+    @SuppressWarnings("unchecked")
+    protected HttpRequest request(RunContext runContext, Object requestPayload) throws IllegalVariableEvaluationException, IOException {
         String renderedUri = runContext.render(this.uri).as(String.class).map(s -> s.replace(" ", "%20")).orElseThrow();
         String methodName = runContext.render(this.method).as(String.class).orElse("POST");
 
         HttpRequest.HttpRequestBuilder requestBuilder = HttpRequest.builder()
-            .method(methodName)
-            .uri(URI.create(renderedUri));
+            .method(methodName);
 
-        String renderedQuery = runContext.render(this.query).as(String.class).orElseThrow();
-
-        Map<String, Object> requestPayload = new HashMap<>();
-        requestPayload.put("query", renderedQuery);
+        if ("GET".equalsIgnoreCase(methodName) && requestPayload instanceof Map<?, ?> operation) {
+            requestBuilder.uri(URI.create(renderedUri + (renderedUri.contains("?") ? "&" : "?") + queryParameters(operation)));
+        } else {
+            requestBuilder.uri(URI.create(renderedUri));
 
-        if (variables != null) {
-            Object renderedVariables = runContext.render(variables).asMap(String.class, Object.class);
-            requestPayload.put("variables", renderedVariables);
-        }
-
-        if (operationName != null) {
-            String renderedOpName = runContext.render(operationName).as(String.class).orElse(null);
-            if (renderedOpName != null && !renderedOpName.isEmpty()) {
-                requestPayload.put("operationName", renderedOpName);
+            Map<String, String> renderedUploads = runContext.render(this.uploads).asMap(String.class, String.class);
+            if (!renderedUploads.isEmpty() && requestPayload instanceof Map<?, ?> operation) {
+                requestBuilder.body(MultipartUpload.body(runContext, (Map<String, Object>) operation, renderedUploads));
+            } else {
+                requestBuilder.body(
+                    HttpRequest.JsonRequestBody.builder()
+                        .content(requestPayload)
+                        .charset(StandardCharsets.UTF_8)
+                        .build()
+                );
             }
         }
 
-        requestBuilder.body(
-            HttpRequest.JsonRequestBody.builder()
-                .content(requestPayload)
-                .charset(StandardCharsets.UTF_8)
-                .build()
-        );
-
         var renderedHeader = runContext.render(this.headers).asMap(CharSequence.class, CharSequence.class);
         if (!renderedHeader.isEmpty()) {
             requestBuilder.headers(
@@ -214,52 +509,757 @@ public class Request extends AbstractHttp implements RunnableTask<Request.Output
         return requestBuilder.build();
     }
 
+    /**
+     * Encode the payload as URL parameters following the GraphQL over HTTP GET convention.
+     * Map keys are sorted so that the same operation always produces the same URL, which keeps it cacheable upstream.
+     */
+    private static String queryParameters(Map<?, ?> requestPayload) throws IOException {
+        StringJoiner parameters = new StringJoiner("&");
+
+        for (String name : List.of("query", "operationName", "variables", "extensions")) {
+            Object value = requestPayload.get(name);
+            if (value == null) {
+                continue;
+            }
+
+            String encoded = value instanceof String string ? string : GET_PARAMETER_WRITER.writeValueAsString(value);
+            parameters.add(name + "=" + URLEncoder.encode(encoded, StandardCharsets.UTF_8));
+        }
+
+        return parameters.toString();
+    }
+
     @Override
     public Output run(RunContext runContext) throws Exception {
+        FetchType renderedFetchType = runContext.render(this.fetchType).as(FetchType.class).orElse(FetchType.FETCH);
+
+        if (runContext.render(this.validateQuery).as(Boolean.class).orElse(false)) {
+            this.validate(runContext);
+        }
 
+        if (!runContext.render(this.uploads).asMap(String.class, String.class).isEmpty()) {
+            if ("GET".equalsIgnoreCase(runContext.render(this.method).as(String.class).orElse("POST"))) {
+                throw new IllegalArgumentException("`uploads` requires a `POST` request, files can't be sent with `method: GET`");
+            }
+            if (this.variablesFrom != null) {
+                throw new IllegalArgumentException("`uploads` is not supported with `variablesFrom`");
+            }
+        }
+
+        if (runContext.render(this.incrementalDelivery).as(Boolean.class).orElse(false)) {
+            if (this.paginationPath != null || this.variablesFrom != null) {
+                throw new IllegalArgumentException("`incrementalDelivery` is not supported with `paginationPath` nor `variablesFrom`");
+            }
+            if (runContext.render(this.encryptBody).as(Boolean.class).orElse(false)) {
+                throw new IllegalArgumentException("`incrementalDelivery` is not supported with `encryptBody`");
+            }
+        }
+
+        // one client per run: every round trip below reuses its connection pool, but it can't outlive the run
+        // as it logs and reports metrics through this run context
         try (HttpClient client = this.client(runContext)) {
-            HttpRequest request = request(runContext);
+            if (this.paginationPath != null) {
+                return this.paginate(runContext, client);
+            }
+
+            if (this.variablesFrom != null) {
+                return this.batch(runContext, client);
+            }
+
+            Map<String, Object> payload = this.payload(runContext);
+
+            if (renderedFetchType == FetchType.STORE) {
+                return this.store(runContext, client, payload);
+            }
+
+            if (!runContext.render(this.encryptBody).as(Boolean.class).orElse(false)) {
+                return this.cached(runContext, client, payload, renderedFetchType);
+            }
+
+            return this.encrypted(runContext, client, payload);
+        }
+    }
+
+    /**
+     * Send the payload and encrypt the body of the response in the output. The raw body is needed to be encrypted, so it is
+     * buffered in that case only, while being streamed like any other response so that the same metrics are reported.
+     */
+    private Output encrypted(RunContext runContext, HttpClient client, Map<String, Object> payload) throws Exception {
+        List<Object> path = ResponseReader.path(runContext.render(this.extract).as(String.class).orElse("data"));
+        boolean validate = runContext.render(this.validateUnicode).as(Boolean.class).orElse(true);
+        boolean withExtensions = runContext.render(this.includeExtensions).as(Boolean.class).orElse(false);
+
+        AtomicReference<String> raw = new AtomicReference<>();
+        Exchange<Void> exchange = this.send(
+            runContext,
+            payload,
+            request -> this.stream(runContext, client, request, body -> {
+                raw.set(body == null ? null : new String(body.readAllBytes(), StandardCharsets.UTF_8));
+
+                return raw.get() == null || raw.get().isEmpty() ?
+                    ResponseReader.Result.builder().build() :
+                    ResponseReader.readValue(raw.get(), validate, withExtensions, path);
+            }),
+            sent -> sent.getResult().getRows() == 0 && PersistedQueries.isNotFound(sent.getResult().getErrors())
+        );
+
+        Object errors = exchange.getResult().getErrors();
+        if (errors != null && runContext.render(failOnGraphQLErrors).as(Boolean.class).orElse(false)) {
+            throw new Exception("GraphQL query failed with errors: " + errors);
+        }
+
+        return Output.builder()
+            .code(exchange.getResponse().getStatus().getCode())
+            .headers(exchange.getResponse().getHeaders().map())
+            .uri(exchange.getRequest().getUri())
+            .encryptedBody(EncryptedString.from(raw.get(), runContext))
+            .error(errors)
+            .extensions(exchange.getResult().getExtensions())
+            .build();
+    }
+
+    /**
+     * Serve the output from the in-memory or KV cache when {@code cacheTtl} is set and the operation is a query, fetch and cache it otherwise.
+     */
+    private Output cached(RunContext runContext, HttpClient client, Map<String, Object> payload, FetchType fetchType) throws Exception {
+        Duration ttl = runContext.render(this.cacheTtl).as(Duration.class).orElse(null);
+        if (ttl == null) {
+            return this.fetch(runContext, client, payload, fetchType);
+        }
+
+        String query = (String) payload.get("query");
+        Optional<OperationDefinition.Operation> operation = Operations.type(query, PersistedQueries.hash(query), (String) payload.get("operationName"));
+        if (operation.isEmpty() || operation.get() != OperationDefinition.Operation.QUERY) {
+            runContext.logger().debug("Response not cached, only queries are cached but the operation is a {}", operation.map(Enum::name).orElse("unknown operation"));
+            return this.fetch(runContext, client, payload, fetchType);
+        }
+
+        // uploaded files are only opened when the body is sent, so the request can be built for its key alone
+        HttpRequest request = this.request(runContext, payload);
+        String key = ResponseCache.key(
+            request,
+            payload,
+            runContext.render(this.extract).as(String.class).orElse("data"),
+            fetchType,
+            runContext.render(this.includeExtensions).as(Boolean.class).orElse(false),
+            runContext.render(this.uploads).asMap(String.class, String.class)
+        );
+
+        MemoryResponseCache memoryCache = MemoryResponseCache.instance();
+        String scope = ResponseCache.scope(runContext);
+
+        if (runContext.render(this.invalidateCache).as(Boolean.class).orElse(false)) {
+            long removed = memoryCache.invalidate(scope) + ResponseCache.invalidate(runContext);
+            runContext.logger().info("Invalidated {} GraphQL cache entries of namespace '{}'", removed, runContext.flowInfo().namespace());
+        }
+
+        Optional<Map<String, Object>> hit = memoryCache.get(scope, key);
+        if (hit.isPresent()) {
+            metric(runContext, Counter.of("cache.memory.hit", 1));
+            runContext.logger().debug("GraphQL response served from in-memory cache entry '{}'", key);
+            return ResponseCache.toOutput(hit.get(), request.getUri());
+        }
+        metric(runContext, Counter.of("cache.memory.miss", 1));
+
+        hit = ResponseCache.get(runContext, key);
+        if (hit.isPresent()) {
+            metric(runContext, Counter.of("cache.hit", 1));
+            runContext.logger().debug("GraphQL response served from cache entry '{}'", key);
+            this.cacheInMemory(runContext, memoryCache, scope, key, hit.get());
+            return ResponseCache.toOutput(hit.get(), request.getUri());
+        }
+        metric(runContext, Counter.of("cache.miss", 1));
+
+        Output output = this.fetch(runContext, client, payload, fetchType);
+
+        if (output.getError() == null) {
+            Map<String, Object> cached = ResponseCache.toMap(output);
+            cached.put("expiresAt", System.currentTimeMillis() + ttl.toMillis());
+            ResponseCache.put(runContext, key, cached, ttl);
+            this.cacheInMemory(runContext, memoryCache, scope, key, cached);
+        }
+
+        return output;
+    }
+
+    private void cacheInMemory(RunContext runContext, MemoryResponseCache memoryCache, String scope, String key, Map<String, Object> cached) throws IOException {
+        long expiresAt = cached.get("expiresAt") instanceof Number number ? number.longValue() : 0;
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+
+        long evictions = memoryCache.put(scope, key, cached, expiresAt);
+        if (evictions > 0) {
+            metric(runContext, Counter.of("cache.memory.evictions", evictions));
+        }
+    }
+
+    private Output fetch(RunContext runContext, HttpClient client, Map<String, Object> payload, FetchType fetchType) throws Exception {
+        List<Object> path = ResponseReader.path(runContext.render(this.extract).as(String.class).orElse("data"));
+        boolean validate = runContext.render(this.validateUnicode).as(Boolean.class).orElse(true);
+        boolean withExtensions = runContext.render(this.includeExtensions).as(Boolean.class).orElse(false);
+        boolean incremental = runContext.render(this.incrementalDelivery).as(Boolean.class).orElse(false);
+
+        String validatorsKey = null;
+        Map<String, Object> stored = null;
+        Map<String, Object> previous = null;
+        if (runContext.render(this.conditionalRequests).as(Boolean.class).orElse(false)) {
+            validatorsKey = ResponseCache.key(
+                ConditionalRequests.KEY_PREFIX,
+                this.request(runContext, payload),
+                payload,
+                path,
+                fetchType,
+                withExtensions,
+                runContext.render(this.uploads).asMap(String.class, String.class)
+            );
+            stored = ResponseCache.get(runContext, validatorsKey).orElse(null);
+            // validators are only worth sending when the output they validate can still be reused
+            previous = stored == null ? null : ConditionalRequests.output(runContext, stored).orElse(null);
+        }
+        Map<String, String> conditionalHeaders = ConditionalRequests.headers(previous == null ? null : stored);
+
+        Exchange<Void> exchange = this.send(
+            runContext,
+            payload,
+            request -> this.stream(
+                runContext,
+                client,
+                withHeaders(request, conditionalHeaders),
+                body -> ResponseReader.readValue(body, validate, withExtensions, path),
+                incremental ? IncrementalDelivery.value(path, validate, withExtensions) : null
+            ),
+            sent -> sent.getResult().getRows() == 0 && PersistedQueries.isNotFound(sent.getResult().getErrors())
+        );
+        ResponseReader.Result result = exchange.getResult();
+
+        if (previous != null && exchange.getResponse().getStatus().getCode() == ConditionalRequests.NOT_MODIFIED) {
+            metric(runContext, Counter.of("not.modified", 1));
+            runContext.logger().debug("GraphQL response not modified, reusing the previous output");
+
+            return ResponseCache.toOutput(previous, exchange.getRequest().getUri()).toBuilder()
+                .code(ConditionalRequests.NOT_MODIFIED)
+                .notModified(true)
+                .build();
+        }
+
+        runContext.logger().debug("GraphQL response data: {}", result.getData());
+
+        Object errors = result.getErrors();
+        if (errors != null && runContext.render(failOnGraphQLErrors).as(Boolean.class).orElse(false)) {
+            throw new Exception("GraphQL query failed with errors: " + errors);
+        }
+
+        Object data = result.getData();
+        if (fetchType == FetchType.FETCH_ONE && data instanceof List<?> list) {
+            data = list.isEmpty() ? null : list.getFirst();
+        }
+
+        Output output = Output.builder()
+            .code(exchange.getResponse().getStatus().getCode())
+            .headers(exchange.getResponse().getHeaders().map())
+            .uri(exchange.getRequest().getUri())
+            .body(fetchType == FetchType.NONE ? null : data)
+            .error(errors)
+            .extensions(result.getExtensions())
+            .build();
+
+        Map<String, Object> validators = ConditionalRequests.validators(exchange.getResponse());
+        if (validatorsKey != null && errors == null && !validators.isEmpty()) {
+            Duration ttl = runContext.render(this.validatorsTtl).as(Duration.class).orElse(ConditionalRequests.DEFAULT_TTL);
+            ConditionalRequests.put(runContext, validatorsKey, validators, ResponseCache.toMap(output), ttl);
+        }
+
+        return output;
+    }
 
-            HttpResponse<String> response = client.request(request, String.class);
+    /**
+     * Send the payload with {@code sender}. When persisted queries are enabled, only the query hash is sent first
+     * and the full document is sent again if the server answers that it does not know the hash.
+     */
+    private <T> T send(RunContext runContext, Map<String, Object> payload, Sender<T> sender, Predicate<T> persistedQueryNotFound) throws Exception {
+        if (!runContext.render(this.persistedQuery).as(Boolean.class).orElse(false)) {
+            return sender.send(this.build(runContext, payload));
+        }
+
+        String hash = PersistedQueries.hash((String) payload.get("query"));
+        T sent = sender.send(this.build(runContext, PersistedQueries.payload(payload, hash, false)));
+        if (!persistedQueryNotFound.test(sent)) {
+            return sent;
+        }
 
-            String responseBody = response.getBody();
+        runContext.logger().debug("Persisted query '{}' is unknown to the server, sending the full document", hash);
 
-            runContext.logger().debug("GraphQL response: {}", responseBody);
+        return sender.send(this.build(runContext, PersistedQueries.payload(payload, hash, true)));
+    }
 
-            if (responseBody != null) {
-                OptionalInt illegalChar = responseBody.chars().filter(c -> !Character.isDefined(c)).findFirst();
-                if (illegalChar.isPresent()) {
-                    throw new IllegalArgumentException(
-                        "Illegal unicode code point in response body: " + illegalChar.getAsInt() +
-                            ", the Request task only supports valid Unicode strings as the response body."
-                    );
+    /**
+     * Send the payload and hand the streamed response body to {@code reader} without buffering it.
+     */
+    private Exchange<Void> stream(RunContext runContext, HttpClient client, Map<String, Object> payload, StreamReader reader) throws Exception {
+        return this.stream(runContext, client, payload, reader, null);
+    }
+
+    /**
+     * Same as {@link #stream(RunContext, HttpClient, Map, StreamReader)}, accepting a {@code multipart/mixed} response read by {@code incremental} when not null.
+     */
+    private Exchange<Void> stream(RunContext runContext, HttpClient client, Map<String, Object> payload, StreamReader reader, IncrementalDelivery incremental) throws Exception {
+        return this.send(
+            runContext,
+            payload,
+            request -> this.stream(runContext, client, request, reader, incremental),
+            sent -> sent.getResult().getRows() == 0 && PersistedQueries.isNotFound(sent.getResult().getErrors())
+        );
+    }
+
+    private Exchange<Void> stream(RunContext runContext, HttpClient client, HttpRequest request, StreamReader reader) throws Exception {
+        return this.stream(runContext, client, request, reader, null);
+    }
+
+    private Exchange<Void> stream(RunContext runContext, HttpClient client, HttpRequest request, StreamReader reader, IncrementalDelivery incremental) throws Exception {
+        HttpRequest sent = this.encode(runContext, request);
+        if (runContext.render(this.acceptCompressedResponses).as(Boolean.class).orElse(true) &&
+            (sent.getHeaders() == null || sent.getHeaders().firstValue("Accept-Encoding").isEmpty())) {
+            sent = withHeaders(sent, Map.of("Accept-Encoding", Compression.ACCEPTED_ENCODINGS));
+        }
+        if (incremental != null &&
+            (sent.getHeaders() == null || sent.getHeaders().firstValue("Accept").isEmpty())) {
+            sent = withHeaders(sent, Map.of("Accept", IncrementalDelivery.ACCEPT));
+        }
+
+        AtomicReference<ResponseReader.Result> result = new AtomicReference<>(ResponseReader.Result.builder().build());
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.request(sent, throwConsumer(streamed -> {
+            // the consumer is called once the status and headers are received
+            metric(runContext, Timer.of("http.ttfb", Duration.ofNanos(System.nanoTime() - start)));
+
+            if (streamed.getBody() == null) {
+                result.set(reader.read(null));
+                return;
+            }
+
+            String contentEncoding = streamed.getHeaders() == null ? null : streamed.getHeaders().firstValue("Content-Encoding").orElse(null);
+            String contentType = streamed.getHeaders() == null ? null : streamed.getHeaders().firstValue("Content-Type").orElse(null);
+            long parseStart = System.nanoTime();
+
+            // the HTTP client usually decodes compressed responses itself, this only handles the ones it hands over still encoded
+            try (CountingInputStream received = new CountingInputStream(streamed.getBody());
+                 CountingInputStream body = new CountingInputStream(Compression.decode(received, contentEncoding))) {
+                if (!IncrementalDelivery.isMultipart(contentType)) {
+                    result.set(reader.read(body));
+                } else if (incremental != null) {
+                    // incremental parts are applied as they arrive, straight from the response stream
+                    result.set(incremental.read(body, IncrementalDelivery.boundary(contentType)));
+                } else {
+                    throw new IOException("Unexpected multipart/mixed response, set `incrementalDelivery` to accept incremental delivery");
+                }
+
+                metric(runContext, Timer.of("response.parse.duration", Duration.ofNanos(System.nanoTime() - parseStart)));
+                metric(runContext, Counter.of("response.bytes", received.count()));
+                if (contentEncoding != null) {
+                    metric(runContext, Counter.of("response.uncompressed.bytes", body.count()));
                 }
             }
+        }));
+
+        exchangeMetrics(runContext, response.getStatus().getCode(), Duration.ofNanos(System.nanoTime() - start), result.get().getErrors());
+
+        return Exchange.<Void>builder()
+            .request(sent)
+            .response(response)
+            .result(result.get())
+            .build();
+    }
+
+    /**
+     * Serialize the JSON body of the request once, compressed with {@code requestCompression}, so that its size is known.
+     */
+    private HttpRequest encode(RunContext runContext, HttpRequest request) throws Exception {
+        if (!(request.getBody() instanceof HttpRequest.JsonRequestBody json)) {
+            return request;
+        }
+
+        Compression compression = runContext.render(this.requestCompression).as(Compression.class).orElse(Compression.NONE);
+        byte[] content = JacksonMapper.ofJson().writeValueAsBytes(json.getContent());
+        byte[] encoded = compression.compress(content);
+
+        metric(runContext, Counter.of("request.bytes", encoded.length));
+        if (compression != Compression.NONE) {
+            metric(runContext, Counter.of("request.uncompressed.bytes", content.length));
+        }
+
+        HttpRequest withBody = HttpRequest.builder()
+            .method(request.getMethod())
+            .uri(request.getUri())
+            .headers(request.getHeaders())
+            .body(
+                HttpRequest.ByteArrayRequestBody.builder()
+                    .contentType("application/json")
+                    .charset(StandardCharsets.UTF_8)
+                    .content(encoded)
+                    .build()
+            )
+            .build();
+
+        return compression == Compression.NONE ? withBody : withHeaders(withBody, Map.of("Content-Encoding", compression.encoding()));
+    }
+
+    /**
+     * Validate the rendered query against the schema of the endpoint cached by the {@link Introspect} task, before anything is sent.
+     */
+    private void validate(RunContext runContext) throws IllegalVariableEvaluationException, IOException {
+        String renderedUri = runContext.render(this.uri).as(String.class).orElseThrow();
+        String key = SchemaCache.key(renderedUri, runContext.render(this.headers).asMap(CharSequence.class, CharSequence.class));
+        Optional<Map<String, Object>> head = SchemaCache.get(runContext, key);
+        if (head.isEmpty()) {
+            runContext.logger().warn("No cached schema for '{}', the query is sent without validation; run the Introspect task to cache it", renderedUri);
+            return;
+        }
+
+        String renderedQuery = runContext.render(this.query).as(String.class).orElseThrow();
+        long start = System.nanoTime();
+        Optional<GraphQLSchema> schema = SchemaCache.schema(runContext, key, head.get());
+        if (schema.isEmpty()) {
+            runContext.logger().warn("The cached schema of '{}' is incomplete, the query is sent without validation; run the Introspect task to cache it again", renderedUri);
+            return;
+        }
+        List<String> errors = Operations.validate(schema.get(), SchemaCache.version(head.get()), renderedQuery, PersistedQueries.hash(renderedQuery));
+        metric(runContext, Timer.of("query.validation.duration", Duration.ofNanos(System.nanoTime() - start)));
+
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("GraphQL query is invalid against the schema of '" + renderedUri + "': " + errors);
+        }
+    }
+
+    /**
+     * Time the rendering of the HTTP request of a payload.
+     */
+    private HttpRequest build(RunContext runContext, Object requestPayload) throws Exception {
+        long start = System.nanoTime();
+        HttpRequest request = this.request(runContext, requestPayload);
+        metric(runContext, Timer.of("request.build.duration", Duration.ofNanos(System.nanoTime() - start)));
+
+        return request;
+    }
+
+    /**
+     * Report the status, the total time and the number of GraphQL errors of an HTTP exchange.
+     */
+    private void exchangeMetrics(RunContext runContext, int status, Duration duration, Object errors) {
+        metric(runContext, Timer.of("http.duration", duration, "status", String.valueOf(status)));
+        metric(runContext, Counter.of("http.requests", 1, "status", String.valueOf(status)));
+
+        errorsMetric(runContext, errors);
+    }
+
+    private void errorsMetric(RunContext runContext, Object errors) {
+        if (errors != null) {
+            metric(runContext, Counter.of("graphql.errors", errors instanceof Collection<?> collection ? collection.size() : 1));
+        }
+    }
 
-            return this.output(runContext, request, response, responseBody);
+    /**
+     * Copy the request with additional headers, replacing the ones with the same name.
+     */
+    private static HttpRequest withHeaders(HttpRequest request, Map<String, String> headers) {
+        if (headers.isEmpty()) {
+            return request;
+        }
+
+        Map<String, List<String>> merged = new HashMap<>(request.getHeaders() == null ? Map.of() : request.getHeaders().map());
+        headers.forEach((name, value) -> merged.put(name, List.of(value)));
+
+        return HttpRequest.builder()
+            .method(request.getMethod())
+            .uri(request.getUri())
+            .body(request.getBody())
+            .headers(HttpHeaders.of(merged, (a, b) -> true))
+            .build();
+    }
+
+    /**
+     * Report a metric, requests of a batch being sent concurrently on several threads.
+     * The lock is owned by this task, never by the run context which is shared with the rest of the worker.
+     */
+    private void metric(RunContext runContext, AbstractMetricEntry<?> metric) {
+        synchronized (metricsLock) {
+            runContext.metric(metric);
         }
     }
 
     @SuppressWarnings("unchecked")
+    private Output paginate(RunContext runContext, HttpClient client) throws Exception {
+        List<Object> path = ResponseReader.path(runContext.render(this.paginationPath).as(String.class).orElseThrow());
+        String renderedCursorVariable = runContext.render(this.cursorVariable).as(String.class).orElse("after");
+        Integer renderedMaxPages = runContext.render(this.maxPages).as(Integer.class).orElse(null);
+        boolean failOnErrors = runContext.render(failOnGraphQLErrors).as(Boolean.class).orElse(false);
+        boolean validate = runContext.render(this.validateUnicode).as(Boolean.class).orElse(true);
+
+        Map<String, Object> payload = this.payload(runContext);
+        Map<String, Object> pageVariables = new HashMap<>(Optional.ofNullable((Map<String, Object>) payload.get("variables")).orElse(Map.of()));
+        Object cursor = pageVariables.get(renderedCursorVariable);
+
+        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+        List<Object> errors = new ArrayList<>();
+        Exchange<Void> exchange;
+        long rows = 0;
+        int pages = 0;
+
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            while (true) {
+                if (cursor != null) {
+                    pageVariables.put(renderedCursorVariable, cursor);
+                }
+                Map<String, Object> pagePayload = new HashMap<>(payload);
+                pagePayload.put("variables", pageVariables);
+
+                exchange = this.stream(runContext, client, pagePayload, body -> ResponseReader.readConnection(body, validate, path, row -> FileSerde.write(output, row)));
+                ResponseReader.Result result = exchange.getResult();
+
+                pages++;
+                rows += result.getRows();
+
+                Object pageErrors = result.getErrors();
+                if (pageErrors != null) {
+                    if (failOnErrors) {
+                        throw new Exception("GraphQL query failed with errors on page " + pages + ": " + pageErrors);
+                    }
+                    if (pageErrors instanceof Collection<?> collection) {
+                        errors.addAll(collection);
+                    } else {
+                        errors.add(pageErrors);
+                    }
+                }
+
+                Map<String, Object> pageInfo = result.getPageInfo();
+                if (pageInfo == null || !Boolean.TRUE.equals(pageInfo.get("hasNextPage"))) {
+                    break;
+                }
+
+                Object endCursor = pageInfo.get("endCursor");
+                if (endCursor == null || endCursor.equals(cursor)) {
+                    runContext.logger().warn("GraphQL connection reported a next page without a new `endCursor`, stopping after {} page(s)", pages);
+                    break;
+                }
+
+                if (renderedMaxPages != null && pages >= renderedMaxPages) {
+                    runContext.logger().debug("Reached the maximum of {} page(s)", renderedMaxPages);
+                    break;
+                }
+
+                cursor = endCursor;
+            }
+        }
+
+        runContext.logger().debug("GraphQL pagination stored {} row(s) from {} page(s)", rows, pages);
+
+        return Output.builder()
+            .code(exchange.getResponse().getStatus().getCode())
+            .headers(exchange.getResponse().getHeaders().map())
+            .uri(exchange.getRequest().getUri())
+            .error(errors.isEmpty() ? null : errors)
+            .storedUri(runContext.storage().putFile(tempFile))
+            .size(rows)
+            .pages(pages)
+            .build();
+    }
+
+    private Output batch(RunContext runContext, HttpClient client) throws Exception {
+        int renderedBatchSize = runContext.render(this.batchSize).as(Integer.class).orElse(50);
+        if (renderedBatchSize < 1) {
+            throw new IllegalArgumentException("`batchSize` must be greater than 0, got " + renderedBatchSize);
+        }
+        int renderedConcurrency = runContext.render(this.concurrency).as(Integer.class).orElse(1);
+        if (renderedConcurrency < 1) {
+            throw new IllegalArgumentException("`concurrency` must be greater than 0, got " + renderedConcurrency);
+        }
+        boolean ordered = runContext.render(this.ordered).as(Boolean.class).orElse(true);
+        boolean failOnErrors = runContext.render(failOnGraphQLErrors).as(Boolean.class).orElse(false);
+
+        Map<String, Object> payload = this.payload(runContext);
+        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+        Exchange<Void> exchange = null;
+        long rows = 0;
+
+        try (BatchWindow<Batch> window = new BatchWindow<>(ordered);
+             OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            long offset = 0;
+            for (List<Map<String, Object>> variableSets : this.variableSets(runContext).buffer(renderedBatchSize).toIterable()) {
+                long batchOffset = offset;
+                offset += variableSets.size();
+
+                window.submit(() -> this.batch(runContext, client, payload, variableSets, batchOffset, renderedBatchSize, failOnErrors));
+
+                // bound the number of in-flight requests, writing results as they become available
+                while (window.size() >= renderedConcurrency) {
+                    Batch batch = window.next();
+                    rows += write(output, batch);
+                    exchange = batch.getExchange();
+                }
+            }
+
+            while (!window.isEmpty()) {
+                Batch batch = window.next();
+                rows += write(output, batch);
+                exchange = batch.getExchange();
+            }
+        }
+
+        runContext.logger().debug("GraphQL batch stored {} result(s)", rows);
+
+        return Output.builder()
+            .code(exchange == null ? null : exchange.getResponse().getStatus().getCode())
+            .headers(exchange == null ? null : exchange.getResponse().getHeaders().map())
+            .uri(exchange == null ? null : exchange.getRequest().getUri())
+            .storedUri(runContext.storage().putFile(tempFile))
+            .size(rows)
+            .build();
+    }
+
+    private static long write(OutputStream output, Batch batch) throws IOException {
+        for (Map<String, Object> row : batch.getRows()) {
+            FileSerde.write(output, row);
+        }
+
+        return batch.getRows().size();
+    }
+
+    /**
+     * Send one HTTP request for the given variable sets, as a JSON array unless {@code batchSize} is 1, and demultiplex its results.
+     */
+    private Batch batch(RunContext runContext, HttpClient client, Map<String, Object> payload, List<Map<String, Object>> variableSets, long offset, int batchSize, boolean failOnErrors) throws Exception {
+        List<Map<String, Object>> operations = variableSets.stream()
+            .map(variableSet -> operation(payload, variableSet))
+            .toList();
+        List<Map<String, Object>> rows = new ArrayList<>(operations.size());
+        boolean validate = runContext.render(this.validateUnicode).as(Boolean.class).orElse(true);
+
+        HttpRequest request = this.build(runContext, batchSize == 1 ? operations.getFirst() : operations);
+
+        Exchange<Void> exchange = this.stream(runContext, client, request, body -> ResponseReader.readItems(body, validate, item -> {
+            int index = rows.size();
+            if (index >= operations.size()) {
+                throw new IOException("GraphQL batch response has more results than the " + operations.size() + " operation(s) sent");
+            }
+
+            Object itemErrors = item.get("errors");
+            errorsMetric(runContext, itemErrors);
+            if (itemErrors != null && failOnErrors) {
+                throw new IOException("GraphQL query failed with errors for variable set " + (offset + index) + ": " + itemErrors);
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("index", offset + index);
+            row.put("variables", operations.get(index).get("variables"));
+            row.put("data", item.get("data"));
+            row.put("errors", itemErrors);
+            rows.add(row);
+        }));
+
+        if (rows.size() != operations.size()) {
+            throw new IOException(
+                "GraphQL batch response has " + rows.size() + " result(s) for " + operations.size() + " operation(s) sent, " +
+                    "make sure the server supports array batching or set `batchSize` to 1"
+            );
+        }
+
+        return Batch.builder()
+            .exchange(exchange)
+            .rows(rows)
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flux<Map<String, Object>> variableSets(RunContext runContext) throws IllegalVariableEvaluationException, URISyntaxException, IOException {
+        Object renderedFrom = runContext.render(this.variablesFrom).as(Object.class).orElseThrow();
+
+        if (renderedFrom instanceof String from && from.trim().startsWith("[")) {
+            renderedFrom = JacksonMapper.ofJson().readValue(from, List.class);
+        }
+
+        if (renderedFrom instanceof String from) {
+            URI fromUri = new URI(from.trim());
+            return Flux.using(
+                () -> new BufferedReader(new InputStreamReader(runContext.storage().getFile(fromUri))),
+                FileSerde::readAll,
+                throwConsumer(BufferedReader::close)
+            ).map(row -> (Map<String, Object>) row);
+        }
+
+        if (renderedFrom instanceof Collection<?> collection) {
+            return Flux.fromIterable(collection).map(row -> (Map<String, Object>) row);
+        }
+
+        throw new IllegalArgumentException("Invalid `variablesFrom`, must be a list of variable sets or the URI of an ION file, got " + renderedFrom.getClass().getSimpleName());
+    }
+
+    /**
+     * Copy the payload with the given variable set merged over the task {@code variables}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> operation(Map<String, Object> payload, Map<String, Object> variableSet) {
+        Map<String, Object> operationVariables = new HashMap<>(Optional.ofNullable((Map<String, Object>) payload.get("variables")).orElse(Map.of()));
+        operationVariables.putAll(variableSet);
+
+        Map<String, Object> operation = new HashMap<>(payload);
+        operation.put("variables", operationVariables);
+
+        return operation;
+    }
+
+    private Output store(RunContext runContext, HttpClient client, Map<String, Object> payload) throws Exception {
+        List<Object> path = ResponseReader.path(runContext.render(this.extract).as(String.class).orElse("data"));
+        boolean validate = runContext.render(this.validateUnicode).as(Boolean.class).orElse(true);
+        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+
+        Exchange<Void> exchange;
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            ResponseReader.RowConsumer consumer = row -> FileSerde.write(output, row);
+            exchange = this.stream(
+                runContext,
+                client,
+                payload,
+                body -> ResponseReader.read(body, validate, path, consumer),
+                runContext.render(this.incrementalDelivery).as(Boolean.class).orElse(false) ? IncrementalDelivery.rows(path, validate, consumer) : null
+            );
+        }
+
+        Object errors = exchange.getResult().getErrors();
+        if (errors != null && runContext.render(failOnGraphQLErrors).as(Boolean.class).orElse(false)) {
+            throw new Exception("GraphQL query failed with errors: " + errors);
+        }
+
+        runContext.logger().debug("GraphQL response stored {} row(s)", exchange.getResult().getRows());
+
+        return Output.builder()
+            .code(exchange.getResponse().getStatus().getCode())
+            .headers(exchange.getResponse().getHeaders().map())
+            .uri(exchange.getRequest().getUri())
+            .error(errors)
+            .storedUri(runContext.storage().putFile(tempFile))
+            .size(exchange.getResult().getRows())
+            .build();
+    }
+
     public Output output(RunContext runContext, HttpRequest request, HttpResponse<String> response, String body) throws Exception {
         boolean encrypt = runContext.render(this.encryptBody).as(Boolean.class).orElse(false);
+        boolean withExtensions = runContext.render(this.includeExtensions).as(Boolean.class).orElse(false);
+        boolean validate = runContext.render(this.validateUnicode).as(Boolean.class).orElse(true);
+        List<Object> path = ResponseReader.path(runContext.render(this.extract).as(String.class).orElse("data"));
 
         Object errors = null;
         Object data = null;
+        Object extensions = null;
 
         if (body != null && !body.isEmpty()) {
-            Map<String, Object> jsonResponse = JacksonMapper.ofJson().readValue(body, Map.class);
-
-            if (jsonResponse.containsKey("data")) {
-                data = jsonResponse.get("data");
-            }
+            ResponseReader.Result envelope = ResponseReader.readValue(body, validate, withExtensions, path);
+            data = envelope.getData();
+            extensions = envelope.getExtensions();
+            errors = envelope.getErrors();
+            errorsMetric(runContext, errors);
 
-            if (jsonResponse.containsKey("errors")) {
-                errors = jsonResponse.get("errors");
-
-                if (errors != null && runContext.render(failOnGraphQLErrors).as(Boolean.class).orElse(false)) {
-                    throw new Exception("GraphQL query failed with errors: " + errors);
-                }
+            if (errors != null && runContext.render(failOnGraphQLErrors).as(Boolean.class).orElse(false)) {
+                throw new Exception("GraphQL query failed with errors: " + errors);
             }
         }
 
@@ -270,9 +1270,38 @@ public class Request extends AbstractHttp implements RunnableTask<Request.Output
             .body(encrypt ? null : data)
             .encryptedBody(encrypt ? EncryptedString.from(body, runContext) : null)
             .error(errors)
+            .extensions(extensions)
             .build();
     }
 
+    @FunctionalInterface
+    private interface Sender<T> {
+        T send(HttpRequest request) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface StreamReader {
+        ResponseReader.Result read(InputStream body) throws IOException;
+    }
+
+    @Builder
+    @Getter
+    private static class Batch {
+        private final Exchange<Void> exchange;
+
+        private final List<Map<String, Object>> rows;
+    }
+
+    @Builder
+    @Getter
+    private static class Exchange<B> {
+        private final HttpRequest request;
+
+        private final HttpResponse<B> response;
+
+        private final ResponseReader.Result result;
+    }
+
     @Builder(toBuilder = true)
     @Getter
     public static class Output implements io.kestra.core.models.tasks.Output {
@@ -288,7 +1317,7 @@ public class Request extends AbstractHttp implements RunnableTask<Request.Output
 
         @Schema(
             title = "GraphQL data from the response",
-            description = "Contains the `data` field returned by the GraphQL server. Null when `encryptBody` is true; data is then available in `encryptedBody`."
+            description = "Contains the value selected by `extract`, the `data` field returned by the GraphQL server by default. Null when `encryptBody` is true; data is then available in `encryptedBody`."
         )
         private Object body;
 
@@ -303,5 +1332,35 @@ public class Request extends AbstractHttp implements RunnableTask<Request.Output
             description = "Contains the encrypted response when `encryptBody` is true."
         )
         private EncryptedString encryptedBody;
+
+        @Schema(
+            title = "GraphQL extensions from the response",
+            description = "Only set when `includeExtensions` is true."
+        )
+        private Object extensions;
+
+        @Schema(
+            title = "URI of the stored response",
+            description = "Set when `fetchType` is `STORE`, with `paginationPath` or with `variablesFrom`; an ION file in internal storage."
+        )
+        private URI storedUri;
+
+        @Schema(
+            title = "Number of rows stored",
+            description = "Only set when the response is stored in `storedUri`."
+        )
+        private Long size;
+
+        @Schema(
+            title = "Number of pages fetched",
+            description = "Only set when `paginationPath` is used."
+        )
+        private Integer pages;
+
+        @Schema(
+            title = "Whether the previous output was reused",
+            description = "Only set with `conditionalRequests`, true when the server answered `304 Not Modified`."
+        )
+        private Boolean notModified;
     }
 }
@@ -0,0 +1,134 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.kestra.core.http.HttpRequest;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.storages.kv.KVEntry;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+
+/**
+ * Cache of {@link Request} outputs in the KV store of the flow namespace, behind the per-worker {@link MemoryResponseCache}.
+ * <p>
+ * Entries are keyed by a hash of everything that makes up the rendered request (method, URI, headers and payload)
+ * and of the options shaping the output, so secrets in headers never appear in the key.
+ */
+final class ResponseCache {
+    static final String KEY_PREFIX = "graphql_cache_";
+
+    private static final ObjectWriter CANONICAL_WRITER = JacksonMapper.ofJson().writer()
+        .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private ResponseCache() {
+    }
+
+    static String key(HttpRequest request, Object payload, Object... options) throws IOException {
+        return key(KEY_PREFIX, request, payload, options);
+    }
+
+    static String key(String prefix, HttpRequest request, Object payload, Object... options) throws IOException {
+        Map<String, Object> key = new LinkedHashMap<>();
+        key.put("method", request.getMethod());
+        key.put("uri", request.getUri().toString());
+        key.put("headers", request.getHeaders() == null ? Map.of() : new TreeMap<>(request.getHeaders().map()));
+        key.put("payload", payload);
+        key.put("options", Arrays.asList(options));
+
+        return prefix + fingerprint(key);
+    }
+
+    /**
+     * Hash of the canonical JSON of a value, map entries being sorted so that equal values always have the same hash.
+     */
+    static String fingerprint(Object value) throws IOException {
+        return PersistedQueries.sha256(CANONICAL_WRITER.writeValueAsString(value));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Optional<Map<String, Object>> get(RunContext runContext, String key) {
+        Optional<KVValue> value;
+        try {
+            value = kvStore(runContext).getValue(key);
+        } catch (Exception e) {
+            runContext.logger().warn("Unable to read GraphQL cache entry '{}', ignoring the cache", key, e);
+            return Optional.empty();
+        }
+
+        return value
+            .map(KVValue::value)
+            .filter(Map.class::isInstance)
+            .map(cached -> (Map<String, Object>) cached);
+    }
+
+    static void put(RunContext runContext, String key, Map<String, Object> value, Duration ttl) {
+        put(runContext, key, value, ttl, "GraphQL response cache");
+    }
+
+    static void put(RunContext runContext, String key, Map<String, Object> value, Duration ttl, String description) {
+        try {
+            kvStore(runContext).put(key, new KVValueAndMetadata(new KVMetadata(description, ttl), value));
+        } catch (Exception e) {
+            runContext.logger().warn("Unable to write GraphQL cache entry '{}'", key, e);
+        }
+    }
+
+    /**
+     * Drop every entry of the flow namespace from the KV store.
+     *
+     * @return the number of entries removed
+     */
+    static long invalidate(RunContext runContext) throws IOException {
+        KVStore kvStore = kvStore(runContext);
+
+        long removed = 0;
+        for (KVEntry entry : kvStore.list()) {
+            if (entry.key().startsWith(KEY_PREFIX) && kvStore.delete(entry.key())) {
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Scope of the entries in the worker in-memory cache: the tenant and namespace of the flow.
+     */
+    static String scope(RunContext runContext) {
+        return runContext.flowInfo().tenantId() + "/" + runContext.flowInfo().namespace();
+    }
+
+    static Map<String, Object> toMap(Request.Output output) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("code", output.getCode());
+        map.put("headers", output.getHeaders());
+        map.put("body", output.getBody());
+        map.put("extensions", output.getExtensions());
+
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Request.Output toOutput(Map<String, Object> map, URI uri) {
+        return Request.Output.builder()
+            .uri(uri)
+            .code(map.get("code") instanceof Number code ? code.intValue() : null)
+            .headers((Map<String, List<String>>) map.get("headers"))
+            .body(map.get("body"))
+            .extensions(map.get("extensions"))
+            .build();
+    }
+
+    private static KVStore kvStore(RunContext runContext) {
+        return runContext.namespaceKv(runContext.flowInfo().namespace());
+    }
+}
@@ -0,0 +1,381 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.kestra.core.serializers.JacksonMapper;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Streaming reader for GraphQL response envelopes.
+ * <p>
+ * Walks the response with a Jackson {@link JsonParser} so that only the selected sub-tree is materialized,
+ * one row at a time, while everything else is skipped without being allocated.
+ */
+final class ResponseReader {
+    private static final ObjectMapper MAPPER = JacksonMapper.ofJson();
+
+    private ResponseReader() {
+    }
+
+    /**
+     * Parse a path such as {@code data.repository.issues.nodes}, {@code $.data.users[0].name} or {@code $['data']['user']}
+     * into its segments: a {@link String} for an object member and an {@link Integer} for an array index.
+     * Wildcards, filters and recursive descent are not supported.
+     */
+    static List<Object> path(String expression) {
+        String path = expression.trim();
+        if (path.startsWith("$")) {
+            path = path.substring(1);
+        }
+
+        List<Object> segments = new ArrayList<>();
+        int i = 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+
+            if (c == '.') {
+                i++;
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Invalid path '" + expression + "', missing closing bracket");
+                }
+
+                String inner = path.substring(i + 1, end).trim();
+                if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')) {
+                    segments.add(inner.substring(1, inner.length() - 1));
+                } else {
+                    try {
+                        segments.add(Integer.parseInt(inner));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid path '" + expression + "', only member names and array indexes are supported, got '[" + inner + "]'");
+                    }
+                }
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+
+                String name = path.substring(i, end).trim();
+                if (name.isEmpty() || name.equals("*")) {
+                    throw new IllegalArgumentException("Invalid path '" + expression + "', only member names and array indexes are supported, got '" + name + "'");
+                }
+                segments.add(name);
+                i = end;
+            }
+        }
+
+        return segments;
+    }
+
+    /**
+     * Evaluate a path parsed by {@link #path(String)} on an already materialized value, null when it does not match.
+     */
+    static Object valueAt(Object root, List<Object> path) {
+        Object current = root;
+        for (Object segment : path) {
+            if (segment instanceof Integer index && current instanceof List<?> list) {
+                current = index < list.size() ? list.get(index) : null;
+            } else if (current instanceof Map<?, ?> map) {
+                current = map.get(segment);
+            } else {
+                return null;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Read a GraphQL response and hand every row found at {@code path} to {@code consumer}.
+     * When the value at {@code path} is an array, each element is a row; otherwise the value itself is the only row.
+     */
+    static Result read(InputStream inputStream, boolean validateUnicode, List<Object> path, RowConsumer consumer) throws IOException {
+        if (inputStream == null) {
+            return Result.builder().build();
+        }
+
+        try (JsonParser parser = createParser(inputStream, validateUnicode)) {
+            return read(parser, path, false, (p, result) -> result.rows(readRows(p, consumer)));
+        }
+    }
+
+    /**
+     * Read the value found at {@code path}, the {@code errors} of the response, and its {@code extensions} when {@code withExtensions} is true.
+     * Any other member is skipped without being materialized.
+     */
+    static Result readValue(InputStream inputStream, boolean validateUnicode, boolean withExtensions, List<Object> path) throws IOException {
+        if (inputStream == null) {
+            return Result.builder().build();
+        }
+
+        try (JsonParser parser = createParser(inputStream, validateUnicode)) {
+            return read(parser, path, withExtensions, (p, result) -> result.data(p.readValueAs(Object.class)));
+        }
+    }
+
+    /**
+     * Same as {@link #readValue(InputStream, boolean, boolean, List)} on a response already held in memory.
+     */
+    static Result readValue(String body, boolean validateUnicode, boolean withExtensions, List<Object> path) throws IOException {
+        try (JsonParser parser = validateUnicode ? MAPPER.createParser(new UnicodeValidatingReader(new StringReader(body))) : MAPPER.createParser(body)) {
+            return read(parser, path, withExtensions, (p, result) -> result.data(p.readValueAs(Object.class)));
+        }
+    }
+
+    /**
+     * Read a whole JSON object, such as a subsequent payload of an incremental delivery response.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> readObject(InputStream inputStream, boolean validateUnicode) throws IOException {
+        try (JsonParser parser = createParser(inputStream, validateUnicode)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return Map.of();
+            }
+
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Invalid GraphQL response, expected a JSON object but got '" + token + "'");
+            }
+
+            return parser.readValueAs(Map.class);
+        }
+    }
+
+    /**
+     * Read the response of an array-batched request: each element of the top-level array is handed to {@code consumer}
+     * as one item. A top-level object (a non-batched response) is a single item.
+     */
+    @SuppressWarnings("unchecked")
+    static Result readItems(InputStream inputStream, boolean validateUnicode, ItemConsumer consumer) throws IOException {
+        if (inputStream == null) {
+            return Result.builder().build();
+        }
+
+        try (JsonParser parser = createParser(inputStream, validateUnicode)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return Result.builder().build();
+            }
+
+            if (token == JsonToken.START_OBJECT) {
+                consumer.accept(parser.readValueAs(Map.class));
+                return Result.builder().rows(1).build();
+            }
+
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Invalid GraphQL batch response, expected a JSON array but got '" + token + "'");
+            }
+
+            long rows = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(parser.readValueAs(Map.class));
+                rows++;
+            }
+
+            return Result.builder().rows(rows).build();
+        }
+    }
+
+    /**
+     * Read one page of a Relay connection found at {@code path}: rows are taken from {@code nodes},
+     * or from {@code edges} when the connection does not select {@code nodes}, and {@code pageInfo} is kept in the result.
+     */
+    static Result readConnection(InputStream inputStream, boolean validateUnicode, List<Object> path, RowConsumer consumer) throws IOException {
+        if (inputStream == null) {
+            return Result.builder().build();
+        }
+
+        try (JsonParser parser = createParser(inputStream, validateUnicode)) {
+            return read(parser, path, false, (p, result) -> readConnection(p, result, consumer));
+        }
+    }
+
+    /**
+     * Parse bytes directly, or decode them through a {@link UnicodeValidatingReader} when the response must be validated,
+     * so that validation happens while decoding instead of in a separate pass over the body.
+     */
+    private static JsonParser createParser(InputStream inputStream, boolean validateUnicode) throws IOException {
+        if (validateUnicode) {
+            return MAPPER.createParser(new UnicodeValidatingReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+        }
+
+        return MAPPER.createParser(inputStream);
+    }
+
+    private static Result read(JsonParser parser, List<Object> path, boolean withExtensions, LeafReader leafReader) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return Result.builder().build();
+        }
+
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Invalid GraphQL response, expected a JSON object but got '" + token + "'");
+        }
+
+        Result.ResultBuilder result = Result.builder();
+
+        if (path.isEmpty()) {
+            leafReader.read(parser, result);
+            return result.build();
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            if (field.equals(path.getFirst())) {
+                readPath(parser, path, 1, leafReader, result);
+            } else if ("errors".equals(field)) {
+                result.errors(parser.readValueAs(Object.class));
+            } else if (withExtensions && "extensions".equals(field)) {
+                result.extensions(parser.readValueAs(Object.class));
+            } else if ("pending".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                // initial payload of an incremental delivery response
+                result.pending(parser.readValueAs(List.class));
+            } else if ("hasNext".equals(field) && parser.currentToken().isBoolean()) {
+                result.hasNext(parser.getBooleanValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return result.build();
+    }
+
+    private static void readPath(JsonParser parser, List<Object> path, int depth, LeafReader leafReader, Result.ResultBuilder result) throws IOException {
+        if (depth == path.size()) {
+            leafReader.read(parser, result);
+            return;
+        }
+
+        Object segment = path.get(depth);
+        JsonToken token = parser.currentToken();
+
+        if (segment instanceof Integer index) {
+            if (token != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return;
+            }
+
+            int position = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (position++ == index) {
+                    readPath(parser, path, depth + 1, leafReader, result);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return;
+        }
+
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            if (field.equals(segment)) {
+                readPath(parser, path, depth + 1, leafReader, result);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static long readRows(JsonParser parser, RowConsumer consumer) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+
+        if (token != JsonToken.START_ARRAY) {
+            consumer.accept(parser.readValueAs(Object.class));
+            return 1;
+        }
+
+        long rows = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            consumer.accept(parser.readValueAs(Object.class));
+            rows++;
+        }
+
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readConnection(JsonParser parser, Result.ResultBuilder result, RowConsumer consumer) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        boolean itemsRead = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            if (!itemsRead && ("nodes".equals(field) || "edges".equals(field))) {
+                result.rows(readRows(parser, consumer));
+                itemsRead = true;
+            } else if ("pageInfo".equals(field)) {
+                result.pageInfo(parser.readValueAs(Map.class));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(Object row) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface ItemConsumer {
+        void accept(Map<String, Object> item) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface LeafReader {
+        void read(JsonParser parser, Result.ResultBuilder result) throws IOException;
+    }
+
+    @Builder
+    @Getter
+    static class Result {
+        private final long rows;
+
+        private final Object data;
+
+        private final Object errors;
+
+        private final Object extensions;
+
+        private final Map<String, Object> pageInfo;
+
+        private final List<Object> pending;
+
+        private final Boolean hasNext;
+    }
+}
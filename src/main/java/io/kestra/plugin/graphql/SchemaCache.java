@@ -0,0 +1,152 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import io.kestra.core.runners.RunContext;
+
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.UnExecutableSchemaGenerator;
+
+/**
+ * Introspected schemas stored in the KV store of the flow namespace, keyed by endpoint and credentials so that every flow of the
+ * namespace querying the same endpoint as the same user shares them.
+ * <p>
+ * Each schema is stored as two entries that never expire in the KV store:
+ * <ul>
+ *     <li>a small head, read by every validated run, with the {@code version} of the schema (the hash of its SDL), the {@code checkedAt}
+ *     instant of the last fetch or revalidation, and the validators ({@code etag} and {@code lastModified}) if any;</li>
+ *     <li>the content, with the {@code schema} (introspection result) and {@code sdl}, only read when a version is not known to the worker yet.</li>
+ * </ul>
+ * A head is considered fresh for the TTL chosen by the reader, so that a stale schema can still be revalidated with a conditional
+ * request instead of being fetched again; a revalidation only rewrites the head, leaving the version unchanged.
+ * The schemas built from the stored SDL are memoized by version in a small LRU cache shared by the worker.
+ */
+final class SchemaCache {
+    static final String KEY_PREFIX = "graphql_schema_";
+
+    private static final String CONTENT_SUFFIX = "_content";
+
+    private static final int MAX_SCHEMAS = 16;
+
+    /**
+     * Headers identifying the caller, as the schema exposed by an endpoint may depend on who asks for it.
+     */
+    private static final Set<String> IDENTITY_HEADERS = Set.of("authorization", "proxy-authorization", "cookie");
+
+    private static final LruCache<String, GraphQLSchema> SCHEMAS = new LruCache<>(MAX_SCHEMAS);
+
+    private SchemaCache() {
+    }
+
+    /**
+     * Key of the schema of an endpoint, hashing its URI and the values of the {@code Authorization}, {@code Proxy-Authorization}
+     * and {@code Cookie} headers; other headers, such as custom API key headers, don't take part in it.
+     */
+    static String key(String uri, Map<CharSequence, CharSequence> headers) throws IOException {
+        Map<String, String> identity = new TreeMap<>();
+        headers.forEach((name, value) -> {
+            String lowerCase = name.toString().toLowerCase(Locale.ROOT);
+            if (IDENTITY_HEADERS.contains(lowerCase)) {
+                identity.put(lowerCase, value == null ? null : value.toString());
+            }
+        });
+
+        return KEY_PREFIX + ResponseCache.fingerprint(Map.of("uri", uri, "headers", identity));
+    }
+
+    /**
+     * The stored head of the schema of an endpoint, with its {@code version} and {@code checkedAt} entries, and its validators if any.
+     */
+    static Optional<Map<String, Object>> get(RunContext runContext, String key) {
+        return ResponseCache.get(runContext, key)
+            .filter(head -> head.get("version") instanceof String && head.get("checkedAt") instanceof String);
+    }
+
+    /**
+     * The stored content of the schema of an endpoint, with its {@code schema} (introspection result) and {@code sdl} entries;
+     * empty when it is missing or was already replaced by another version.
+     */
+    static Optional<Map<String, Object>> content(RunContext runContext, String key, Map<String, Object> head) {
+        return ResponseCache.get(runContext, key + CONTENT_SUFFIX)
+            .filter(content -> content.get("schema") instanceof Map<?, ?> && content.get("sdl") instanceof String)
+            .filter(content -> version(head).equals(content.get("version")));
+    }
+
+    /**
+     * Store a schema just fetched, checked now.
+     */
+    static void put(RunContext runContext, String key, Map<String, Object> schema, String sdl, Map<String, Object> validators) {
+        String version = PersistedQueries.sha256(sdl);
+
+        // the content goes first, so that a reader seeing the new head finds it
+        Map<String, Object> content = new HashMap<>();
+        content.put("schema", schema);
+        content.put("sdl", sdl);
+        content.put("version", version);
+        ResponseCache.put(runContext, key + CONTENT_SUFFIX, content, null, "GraphQL introspection schema");
+
+        putHead(runContext, key, version, validators);
+    }
+
+    /**
+     * Mark a stored schema as checked now, after the server answered {@code 304 Not Modified}, without rewriting its content.
+     */
+    static void revalidated(RunContext runContext, String key, Map<String, Object> head, Map<String, Object> validators) {
+        putHead(runContext, key, version(head), validators);
+    }
+
+    private static void putHead(RunContext runContext, String key, String version, Map<String, Object> validators) {
+        Map<String, Object> head = new HashMap<>(validators);
+        head.put("version", version);
+        head.put("checkedAt", Instant.now().toString());
+
+        ResponseCache.put(runContext, key, head, null, "GraphQL introspection schema version");
+    }
+
+    /**
+     * The validators stored with a head, empty when the server did not send any.
+     */
+    static Map<String, Object> validators(Map<String, Object> head) {
+        Map<String, Object> validators = new HashMap<>();
+        if (head.get("etag") instanceof String etag) {
+            validators.put("etag", etag);
+        }
+        if (head.get("lastModified") instanceof String lastModified) {
+            validators.put("lastModified", lastModified);
+        }
+
+        return validators;
+    }
+
+    /**
+     * Whether a schema was fetched or revalidated less than {@code ttl} ago.
+     */
+    static boolean isFresh(Map<String, Object> head, Duration ttl) {
+        return head.get("checkedAt") instanceof String checkedAt &&
+            Instant.parse(checkedAt).plus(ttl).isAfter(Instant.now());
+    }
+
+    /**
+     * Identity of the content of a stored schema, only changing when its SDL changes, used to memoize what is derived from it.
+     */
+    static String version(Map<String, Object> head) {
+        return (String) head.get("version");
+    }
+
+    /**
+     * The schema of a head, reusing the last built schemas: the content is only read from the KV store when its version
+     * was not built by the worker yet. Empty when the content is missing.
+     */
+    static Optional<GraphQLSchema> schema(RunContext runContext, String key, Map<String, Object> head) {
+        return Optional.ofNullable(SCHEMAS.get(
+            version(head),
+            version -> content(runContext, key, head)
+                .map(content -> UnExecutableSchemaGenerator.makeUnExecutableSchema(new SchemaParser().parse((String) content.get("sdl"))))
+                .orElse(null)
+        ));
+    }
+}
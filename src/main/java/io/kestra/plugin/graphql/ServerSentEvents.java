@@ -0,0 +1,64 @@
+package io.kestra.plugin.graphql;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Minimal reader of a {@code text/event-stream}, dispatching each event as soon as its blank line is read.
+ * Only the {@code event} and {@code data} fields are kept; comments, {@code id} and {@code retry} are ignored.
+ */
+final class ServerSentEvents {
+    private ServerSentEvents() {
+    }
+
+    /**
+     * Read events until the end of the stream or until {@code consumer} returns false.
+     *
+     * @return false when the consumer stopped the reading
+     */
+    static boolean read(BufferedReader reader, EventConsumer consumer) throws IOException {
+        String event = null;
+        StringBuilder data = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (data != null || event != null) {
+                    if (!consumer.accept(event == null ? "message" : event, data == null ? "" : data.toString())) {
+                        return false;
+                    }
+                }
+                event = null;
+                data = null;
+                continue;
+            }
+
+            if (line.startsWith(":")) {
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+
+            if ("event".equals(field)) {
+                event = value;
+            } else if ("data".equals(field)) {
+                data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+            }
+        }
+
+        return true;
+    }
+
+    @FunctionalInterface
+    interface EventConsumer {
+        /**
+         * @return false to stop reading
+         */
+        boolean accept(String event, String data) throws IOException;
+    }
+}
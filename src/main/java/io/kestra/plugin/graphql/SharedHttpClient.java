@@ -0,0 +1,25 @@
+package io.kestra.plugin.graphql;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * JDK HTTP client shared by every {@link Subscribe} and {@link RealtimeTrigger} of the worker, so that connections to the same
+ * endpoint are reused across runs instead of each one opening its own pool.
+ * <p>
+ * Unlike the Kestra HTTP client of the other tasks, this client holds no run context nor per-task configuration, which is what makes it safe to share.
+ */
+final class SharedHttpClient {
+    static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final HttpClient INSTANCE = HttpClient.newBuilder()
+        .connectTimeout(CONNECT_TIMEOUT)
+        .build();
+
+    private SharedHttpClient() {
+    }
+
+    static HttpClient instance() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,265 @@
+package io.kestra.plugin.graphql;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.models.tasks.Task;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Consume a GraphQL subscription over Server-Sent Events",
+    description = "Subscribes with the `graphql-sse` protocol (distinct connections mode) and writes every event to an ION file in internal storage as it is received, " +
+        "so memory stays flat whatever the number of events. The subscription ends after `maxDuration`, after `maxEvents` events, or when the server completes it. " +
+        "The request is sent with the HTTP client of the JDK, so the proxy, SSL and authentication options of the HTTP tasks are not available: pass credentials in `headers`."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Collect the reviews published during one minute",
+            full = true,
+            code = """
+                id: graphql_sse
+                namespace: company.team
+
+                tasks:
+                  - id: reviews
+                    type: io.kestra.plugin.graphql.Subscribe
+                    uri: https://example.com/graphql/stream
+                    headers:
+                      Authorization: "Bearer {{ secret('API_TOKEN') }}"
+                    query: |
+                      subscription {
+                        reviewAdded {
+                          id
+                          stars
+                        }
+                      }
+                    maxDuration: PT1M
+                    maxEvents: 1000
+                """
+        )
+    }
+)
+public class Subscribe extends Task implements RunnableTask<Subscribe.Output> {
+    @Schema(
+        title = "URI of the GraphQL over SSE endpoint"
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> uri;
+
+    @Schema(
+        title = "GraphQL subscription",
+        description = "Rendered from the flow context before subscribing."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> query;
+
+    @Schema(
+        title = "Variables for the subscription",
+        description = "Rendered GraphQL variables; supports nested objects."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> variables;
+
+    @Schema(
+        title = "Operation name to run",
+        description = "Required when the query document defines multiple operations."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> operationName;
+
+    @Schema(
+        title = "HTTP headers of the request"
+    )
+    @PluginProperty(group = "connection")
+    private Property<Map<String, String>> headers;
+
+    @Builder.Default
+    @Schema(
+        title = "Maximum duration of the subscription",
+        description = "The subscription is closed after this duration, counted from when the request is sent, and the events received so far are kept; defaults to 1 minute."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<Duration> maxDuration = Property.ofValue(Duration.ofMinutes(1));
+
+    @Schema(
+        title = "Maximum number of events to receive",
+        description = "The subscription is closed once this number of events is received."
+    )
+    @PluginProperty(group = "main")
+    private Property<Integer> maxEvents;
+
+    @Builder.Default
+    @Schema(
+        title = "Fail task on GraphQL errors",
+        description = "If true, the task fails on the first event containing GraphQL errors; defaults to false."
+    )
+    @PluginProperty(group = "reliability")
+    private Property<Boolean> failOnGraphQLErrors = Property.ofValue(false);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Output run(RunContext runContext) throws Exception {
+        URI renderedUri = URI.create(runContext.render(this.uri).as(String.class).orElseThrow());
+        Duration renderedMaxDuration = runContext.render(this.maxDuration).as(Duration.class).orElse(Duration.ofMinutes(1));
+        Integer renderedMaxEvents = runContext.render(this.maxEvents).as(Integer.class).orElse(null);
+        boolean failOnErrors = runContext.render(this.failOnGraphQLErrors).as(Boolean.class).orElse(false);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(renderedUri)
+            .header("Content-Type", "application/json")
+            .header("Accept", "text/event-stream")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(
+                JacksonMapper.ofJson().writeValueAsBytes(GraphQLPayload.render(runContext, this.query, this.variables, this.operationName))
+            ));
+        runContext.render(this.headers).asMap(String.class, String.class).forEach(request::header);
+
+        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+        AtomicBoolean expired = new AtomicBoolean();
+        AtomicBoolean completed = new AtomicBoolean();
+        AtomicLong events = new AtomicLong();
+
+        HttpClient client = SharedHttpClient.instance();
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            // the deadline also covers the wait for the response headers
+            long deadlineAt = System.nanoTime() + renderedMaxDuration.toNanos();
+            HttpResponse<InputStream> response = send(client, request.build(), renderedMaxDuration);
+            if (response == null) {
+                expired.set(true);
+            } else {
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() >= 400) {
+                        throw new IOException("GraphQL subscription failed with HTTP status " + response.statusCode() + ": " + new String(body.readNBytes(4096), StandardCharsets.UTF_8));
+                    }
+
+                    // closing the body from another thread is the only way to interrupt a blocked read
+                    Thread deadline = Thread.ofVirtual().start(() -> {
+                        try {
+                            Thread.sleep(Math.max(0, Duration.ofNanos(deadlineAt - System.nanoTime()).toMillis()));
+                            expired.set(true);
+                            body.close();
+                        } catch (InterruptedException | IOException ignored) {
+                            // the subscription ended first
+                        }
+                    });
+
+                    try {
+                        boolean ended = ServerSentEvents.read(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), (event, data) -> {
+                            if ("complete".equals(event)) {
+                                completed.set(true);
+                                return false;
+                            }
+                            if (!"next".equals(event)) {
+                                return true;
+                            }
+
+                            Map<String, Object> payload = JacksonMapper.ofJson().readValue(data, Map.class);
+                            Object errors = payload.get("errors");
+                            if (errors != null && failOnErrors) {
+                                throw new IOException("GraphQL subscription failed with errors: " + errors);
+                            }
+
+                            Map<String, Object> row = new LinkedHashMap<>();
+                            row.put("data", payload.get("data"));
+                            row.put("errors", errors);
+                            FileSerde.write(output, row);
+
+                            long received = events.incrementAndGet();
+                            return renderedMaxEvents == null || received < renderedMaxEvents;
+                        });
+
+                        // the server closed the stream on its own
+                        if (ended && !expired.get()) {
+                            completed.set(true);
+                        }
+                    } catch (IOException e) {
+                        if (!expired.get()) {
+                            throw e;
+                        }
+                    } finally {
+                        deadline.interrupt();
+                    }
+                }
+            }
+        }
+
+        runContext.metric(Counter.of("events", events.get()));
+        runContext.logger().info("GraphQL subscription received {} event(s)", events.get());
+
+        return Output.builder()
+            .uri(runContext.storage().putFile(tempFile))
+            .size(events.get())
+            .completed(completed.get())
+            .build();
+    }
+
+    /**
+     * Send the subscription request, null when no response headers were received within {@code timeout}.
+     */
+    private static HttpResponse<InputStream> send(HttpClient client, HttpRequest request, Duration timeout) throws Exception {
+        CompletableFuture<HttpResponse<InputStream>> sending = client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            return sending.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            sending.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the stored events",
+            description = "An ION file in internal storage with one row per event (`data` and `errors`)."
+        )
+        private final URI uri;
+
+        @Schema(title = "Number of events received")
+        private final Long size;
+
+        @Schema(
+            title = "Whether the server completed the subscription",
+            description = "False when the subscription was closed by `maxDuration` or `maxEvents`."
+        )
+        private final Boolean completed;
+    }
+}
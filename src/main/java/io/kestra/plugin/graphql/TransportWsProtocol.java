@@ -0,0 +1,127 @@
+package io.kestra.plugin.graphql;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * Client side of the {@code graphql-transport-ws} protocol for a single subscription, independent of the WebSocket implementation.
+ * <p>
+ * The session sends {@code connection_init}, subscribes once the server acknowledges it, answers pings, and hands every
+ * {@code next} payload to the event consumer. Messages to send go through {@link Sender}.
+ */
+final class TransportWsProtocol {
+    static final String SUBPROTOCOL = "graphql-transport-ws";
+
+    private static final ObjectMapper MAPPER = JacksonMapper.ofJson();
+
+    private final Map<String, Object> connectionParams;
+
+    private final Map<String, Object> subscription;
+
+    private final String id;
+
+    private final Sender sender;
+
+    private final EventConsumer consumer;
+
+    private volatile boolean acknowledged;
+
+    private volatile boolean completed;
+
+    private volatile long lastMessageAt = System.currentTimeMillis();
+
+    TransportWsProtocol(Map<String, Object> connectionParams, Map<String, Object> subscription, String id, Sender sender, EventConsumer consumer) {
+        this.connectionParams = connectionParams;
+        this.subscription = subscription;
+        this.id = id;
+        this.sender = sender;
+        this.consumer = consumer;
+    }
+
+    void init() throws IOException {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "connection_init");
+        if (connectionParams != null && !connectionParams.isEmpty()) {
+            message.put("payload", connectionParams);
+        }
+
+        send(message);
+    }
+
+    void ping() throws IOException {
+        send(Map.of("type", "ping"));
+    }
+
+    /**
+     * Handle a text message from the server.
+     *
+     * @throws IOException if the message is invalid
+     * @throws SubscriptionException if the server reports that the subscription failed
+     */
+    @SuppressWarnings("unchecked")
+    void onMessage(String text) throws IOException {
+        lastMessageAt = System.currentTimeMillis();
+
+        Map<String, Object> message = MAPPER.readValue(text, Map.class);
+        Object type = message.get("type");
+
+        if ("connection_ack".equals(type)) {
+            acknowledged = true;
+            send(Map.of("id", id, "type", "subscribe", "payload", subscription));
+        } else if ("ping".equals(type)) {
+            send(Map.of("type", "pong"));
+        } else if ("next".equals(type) && id.equals(message.get("id"))) {
+            Map<String, Object> payload = message.get("payload") instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+            consumer.accept(payload.get("data"), payload.get("errors"));
+        } else if ("error".equals(type) && id.equals(message.get("id"))) {
+            throw new SubscriptionException("GraphQL subscription failed with errors: " + message.get("payload"));
+        } else if ("complete".equals(type) && id.equals(message.get("id"))) {
+            completed = true;
+        } else if (!"pong".equals(type)) {
+            throw new IOException("Unexpected graphql-transport-ws message of type '" + type + "'");
+        }
+    }
+
+    boolean isAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * Whether the server ended the subscription.
+     */
+    boolean isCompleted() {
+        return completed;
+    }
+
+    long lastMessageAt() {
+        return lastMessageAt;
+    }
+
+    private void send(Map<String, Object> message) throws IOException {
+        sender.send(MAPPER.writeValueAsString(message));
+    }
+
+    /**
+     * The server answered the subscription with an {@code error} message: subscribing again would fail the same way.
+     */
+    static final class SubscriptionException extends IOException {
+        SubscriptionException(String message) {
+            super(message);
+        }
+    }
+
+    @FunctionalInterface
+    interface Sender {
+        void send(String text) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface EventConsumer {
+        void accept(Object data, Object errors) throws IOException;
+    }
+}
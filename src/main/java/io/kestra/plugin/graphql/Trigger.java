@@ -0,0 +1,274 @@
+package io.kestra.plugin.graphql;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.kestra.core.http.client.configurations.HttpConfiguration;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.conditions.ConditionContext;
+import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.triggers.*;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import static io.kestra.core.utils.Rethrow.throwSupplier;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Trigger a flow when the result of a GraphQL query changes",
+    description = "Runs the query on every `interval` like the `Request` task, and only creates an execution when the value selected by `extract` differs from the previous poll. " +
+        "A hash of that value is kept in the KV store of the flow namespace between polls; responses with GraphQL errors never trigger nor update it."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Start a flow when the open issues change",
+            full = true,
+            code = """
+                id: graphql_trigger
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.body }}"
+
+                triggers:
+                  - id: issues_changed
+                    type: io.kestra.plugin.graphql.Trigger
+                    interval: PT1M
+                    uri: https://example.com/graphql
+                    query: |
+                      query {
+                        repository(name: "kestra") {
+                          issues(states: OPEN, first: 100) {
+                            nodes {
+                              number
+                              title
+                            }
+                          }
+                        }
+                      }
+                    extract: data.repository.issues.nodes
+                """
+        )
+    }
+)
+public class Trigger extends AbstractTrigger implements PollingTriggerInterface, TriggerOutput<Request.Output> {
+    static final String STATE_PREFIX = "graphql_trigger_";
+
+    private static final String WATERMARK_SUFFIX = "_watermark";
+
+    @Builder.Default
+    @Schema(title = "Interval between polls")
+    private final Duration interval = Duration.ofSeconds(60);
+
+    @Schema(
+        title = "The fully-qualified URI of the GraphQL endpoint"
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> uri;
+
+    @Schema(
+        title = "GraphQL query",
+        description = "Rendered from the trigger context before every poll."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    private Property<String> query;
+
+    @Schema(
+        title = "Variables for the query",
+        description = "Rendered GraphQL variables; supports nested objects."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Map<String, Object>> variables;
+
+    @Schema(
+        title = "Operation name to run",
+        description = "Required when the query document defines multiple operations."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> operationName;
+
+    @Builder.Default
+    @Schema(
+        title = "HTTP method",
+        description = "Defaults to `POST`; see the `Request` task."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> method = Property.ofValue("POST");
+
+    @Schema(
+        title = "HTTP headers of the request"
+    )
+    @PluginProperty(group = "connection")
+    private Property<Map<CharSequence, CharSequence>> headers;
+
+    @Schema(
+        title = "HTTP client options"
+    )
+    @PluginProperty(group = "connection")
+    private HttpConfiguration options;
+
+    @Builder.Default
+    @Schema(
+        title = "Path of the value compared between polls",
+        description = "A dotted path or simple JSONPath from the root of the response, as in the `Request` task; defaults to `data`. " +
+            "Only changes of this value create an execution, so select the part of the response that matters, without timestamps or request ids."
+    )
+    @PluginProperty(group = "main")
+    private Property<String> extract = Property.ofValue("data");
+
+    @Schema(
+        title = "Path of the watermark field in each row",
+        description = "Enables incremental sync: the greatest value of this field among the rows selected by `extract` is kept in the KV store of the flow namespace, " +
+            "and passed in `watermarkVariable` on the next poll, e.g. `updatedAt` for `items(updatedAfter: $since) { id updatedAt }`. " +
+            "An execution is then created whenever the query returns rows, instead of when the result changes, so `extract` must select the list of rows, e.g. `data.items`. " +
+            "Numbers are compared as numbers, any other value as a string, so dates must use a sortable format such as ISO 8601."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> watermarkPath;
+
+    @Builder.Default
+    @Schema(
+        title = "Variable receiving the watermark",
+        description = "Only used with `watermarkPath`; defaults to `since`."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<String> watermarkVariable = Property.ofValue("since");
+
+    @Schema(
+        title = "Watermark of the first poll",
+        description = "Only used with `watermarkPath`, until a watermark is stored. When not set, the first poll is sent without the watermark variable."
+    )
+    @PluginProperty(group = "advanced")
+    private Property<Object> initialWatermark;
+
+    @Override
+    public Optional<Execution> evaluate(ConditionContext conditionContext, TriggerContext context) throws Exception {
+        RunContext runContext = conditionContext.getRunContext();
+        KVStore kvStore = runContext.namespaceKv(context.getNamespace());
+        String stateKey = STATE_PREFIX + PersistedQueries.sha256(context.getFlowId() + "/" + context.getTriggerId());
+
+        if (this.watermarkPath != null) {
+            return this.incremental(runContext, conditionContext, context, kvStore, stateKey + WATERMARK_SUFFIX);
+        }
+
+        Request.Output output = this.request(this.variables).run(runContext);
+
+        if (output.getError() != null) {
+            runContext.logger().warn("GraphQL query returned errors, skipping this poll: {}", output.getError());
+            return Optional.empty();
+        }
+
+        String hash = ResponseCache.fingerprint(output.getBody());
+
+        Optional<String> previous = kvStore.getValue(stateKey).map(KVValue::value).map(Object::toString);
+        if (previous.isPresent() && previous.get().equals(hash)) {
+            runContext.logger().debug("GraphQL query result unchanged, no execution created");
+            return Optional.empty();
+        }
+
+        kvStore.put(stateKey, new KVValueAndMetadata(new KVMetadata("GraphQL trigger state", (Duration) null), hash));
+
+        return Optional.of(TriggerService.generateExecution(this, conditionContext, context, output));
+    }
+
+    /**
+     * Poll with the stored watermark and create an execution with the returned rows, if any, moving the watermark to their greatest value.
+     */
+    private Optional<Execution> incremental(RunContext runContext, ConditionContext conditionContext, TriggerContext context, KVStore kvStore, String watermarkKey) throws Exception {
+        List<Object> path = ResponseReader.path(runContext.render(this.watermarkPath).as(String.class).orElseThrow());
+        String variable = runContext.render(this.watermarkVariable).as(String.class).orElse("since");
+
+        Object watermark = kvStore.getValue(watermarkKey).map(KVValue::value)
+            .or(throwSupplier(() -> runContext.render(this.initialWatermark).as(Object.class)))
+            .orElse(null);
+
+        Map<String, Object> pollVariables = new HashMap<>(runContext.render(this.variables).asMap(String.class, Object.class));
+        if (watermark != null) {
+            pollVariables.put(variable, watermark);
+        }
+
+        Request.Output output = this.request(Property.ofValue(pollVariables)).run(runContext);
+
+        if (output.getError() != null) {
+            runContext.logger().warn("GraphQL query returned errors, skipping this poll: {}", output.getError());
+            return Optional.empty();
+        }
+
+        // with an object, such as the whole `data`, every poll would return one row and create an execution
+        if (output.getBody() != null && !(output.getBody() instanceof List<?>)) {
+            throw new IllegalArgumentException("`extract` must select the list of rows with `watermarkPath`, e.g. `data.items`, but got a " +
+                output.getBody().getClass().getSimpleName() + " at '" + runContext.render(this.extract).as(String.class).orElse("data") + "'");
+        }
+
+        List<?> rows = output.getBody() == null ? List.of() : (List<?>) output.getBody();
+        if (rows.isEmpty()) {
+            runContext.logger().debug("No new rows since watermark '{}', no execution created", watermark);
+            return Optional.empty();
+        }
+
+        Object next = watermark;
+        for (Object row : rows) {
+            Object value = ResponseReader.valueAt(row, path);
+            if (value != null && (next == null || compare(value, next) > 0)) {
+                next = value;
+            }
+        }
+
+        if (next != null && !next.equals(watermark)) {
+            kvStore.put(watermarkKey, new KVValueAndMetadata(new KVMetadata("GraphQL trigger watermark", (Duration) null), next));
+            runContext.logger().info("GraphQL watermark moved from '{}' to '{}'", watermark, next);
+        }
+
+        return Optional.of(TriggerService.generateExecution(this, conditionContext, context, output));
+    }
+
+    private Request request(Property<Map<String, Object>> requestVariables) {
+        return Request.builder()
+            .id(this.getId())
+            .type(Request.class.getName())
+            .uri(this.uri)
+            .method(this.method)
+            .headers(this.headers)
+            .options(this.options)
+            .query(this.query)
+            .variables(requestVariables)
+            .operationName(this.operationName)
+            .extract(this.extract)
+            .build();
+    }
+
+    /**
+     * Compare two watermarks, numerically when both are numbers and as strings otherwise.
+     */
+    private static int compare(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString()));
+        }
+
+        return a.toString().compareTo(b.toString());
+    }
+}
@@ -0,0 +1,57 @@
+package io.kestra.plugin.graphql;
+
+import java.io.CharConversionException;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader rejecting characters that are not defined in Unicode as they are decoded,
+ * so that the response is validated in the same pass as it is parsed.
+ * <p>
+ * Failures are reported as a {@link CharConversionException} so that Jackson propagates them as is instead of wrapping them.
+ */
+final class UnicodeValidatingReader extends FilterReader {
+    private long offset;
+
+    UnicodeValidatingReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = super.read();
+        if (c >= 0) {
+            validate((char) c, offset++);
+        }
+
+        return c;
+    }
+
+    @Override
+    public int read(char[] buffer, int off, int len) throws IOException {
+        int read = super.read(buffer, off, len);
+
+        for (int i = 0; i < read; i++) {
+            char c = buffer[off + i];
+            if (!Character.isDefined(c)) {
+                validate(c, offset + i);
+            }
+        }
+
+        if (read > 0) {
+            offset += read;
+        }
+
+        return read;
+    }
+
+    private static void validate(char c, long offset) throws CharConversionException {
+        if (!Character.isDefined(c)) {
+            throw new CharConversionException(
+                "Illegal unicode code point in response body: " + (int) c + " at offset " + offset +
+                    ", the Request task only supports valid Unicode strings as the response body."
+            );
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.kestra.plugin.graphql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchWindowTest {
+    private static final int CONCURRENCY = 4;
+
+    @Test
+    void shouldHandBackResultsInSubmissionOrderAndDrain() throws Exception {
+        List<CountDownLatch> releases = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+
+        try (BatchWindow<Integer> window = new BatchWindow<>(true)) {
+            for (int i = 0; i < 16; i++) {
+                int index = i;
+                CountDownLatch release = new CountDownLatch(1);
+                releases.add(release);
+                window.submit(() -> {
+                    release.await();
+                    return index;
+                });
+                assertTrue(window.size() <= CONCURRENCY, "pending: " + window.size());
+
+                while (window.size() >= CONCURRENCY) {
+                    // release the requests of the window newest first, the oldest one must still be handed back first
+                    for (int j = releases.size() - 1; j >= 0; j--) {
+                        releases.get(j).countDown();
+                    }
+                    results.add(window.next());
+                }
+            }
+            releases.forEach(CountDownLatch::countDown);
+            while (!window.isEmpty()) {
+                results.add(window.next());
+            }
+
+            assertEquals(0, window.size());
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i));
+        }
+        assertEquals(16, results.size());
+    }
+
+    @Test
+    void shouldHandBackResultsInCompletionOrderAndDrain() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(1);
+
+        try (BatchWindow<String> window = new BatchWindow<>(false)) {
+            window.submit(() -> {
+                first.await();
+                return "first";
+            });
+            window.submit(() -> {
+                second.await();
+                return "second";
+            });
+            assertEquals(2, window.size());
+
+            second.countDown();
+            assertEquals("second", window.next());
+            assertEquals(1, window.size());
+
+            first.countDown();
+            assertEquals("first", window.next());
+            assertTrue(window.isEmpty());
+        }
+    }
+
+    @Test
+    void shouldRethrowTheFailureOfARequest() {
+        try (BatchWindow<String> window = new BatchWindow<>(true)) {
+            window.submit(() -> {
+                throw new IllegalStateException("boom");
+            });
+
+            IllegalStateException exception = assertThrows(IllegalStateException.class, window::next);
+            assertEquals("boom", exception.getMessage());
+            assertTrue(window.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.kestra.plugin.graphql;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.utils.TestsUtils;
+
+import graphql.GraphQL;
+import graphql.introspection.IntrospectionQuery;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import jakarta.inject.Inject;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@KestraTest
+class IntrospectTest {
+    static final String SDL = """
+        type Query {
+          viewer: User
+        }
+
+        type User {
+          name: String!
+          repositories(first: Int): [Repository!]!
+        }
+
+        type Repository {
+          name: String!
+        }
+        """;
+
+    @RegisterExtension
+    static WireMockExtension wireMock = WireMockExtension.newInstance()
+        .build();
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldCacheSchemaAndRevalidateIt() throws Exception {
+        wireMock.stubFor(
+            post(urlPathEqualTo("/graphql"))
+                .atPriority(2)
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", "\"schema-v1\"")
+                        .withBody(introspectionResponse(SDL))
+                )
+        );
+        wireMock.stubFor(
+            post(urlPathEqualTo("/graphql"))
+                .atPriority(1)
+                .withHeader("If-None-Match", equalTo("\"schema-v1\""))
+                .willReturn(aResponse().withStatus(304))
+        );
+
+        String uri = KvTestUtils.uniqueUri(wireMock.getPort());
+        Introspect task = Introspect.builder()
+            .id("introspect")
+            .type(Introspect.class.getName())
+            .uri(Property.ofValue(uri))
+            .build();
+        Introspect expired = Introspect.builder()
+            .id("introspect")
+            .type(Introspect.class.getName())
+            .uri(Property.ofValue(uri))
+            .cacheTtl(Property.ofValue(Duration.ZERO))
+            .build();
+
+        Introspect.Output first = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+        Introspect.Output second = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, expired, Map.of());
+        Map<String, Object> fetched = SchemaCache.get(runContext, SchemaCache.key(uri, Map.of())).orElseThrow();
+        Introspect.Output revalidated = expired.run(runContext);
+        Map<String, Object> checked = SchemaCache.get(runContext, SchemaCache.key(uri, Map.of())).orElseThrow();
+
+        assertFalse(first.getCached());
+        assertTrue(second.getCached());
+        assertFalse(revalidated.getCached());
+        assertTrue(revalidated.getNotModified());
+        assertEquals(SchemaCache.version(fetched), SchemaCache.version(checked));
+        assertNotEquals(fetched.get("checkedAt"), checked.get("checkedAt"));
+        wireMock.verify(2, postRequestedFor(urlPathEqualTo("/graphql")));
+
+        try (InputStream sdl = runContext.storage().getFile(revalidated.getSdlUri())) {
+            String printed = new String(sdl.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(printed.contains("type User"), printed);
+            assertTrue(printed.contains("repositories(first: Int): [Repository!]!"), printed);
+        }
+    }
+
+    /**
+     * A real introspection result, as returned by a graphql-java server for this schema.
+     */
+    static String introspectionResponse(String sdl) throws Exception {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), RuntimeWiring.newRuntimeWiring().build());
+
+        return JacksonMapper.ofJson().writeValueAsString(
+            GraphQL.newGraphQL(schema).build().execute(IntrospectionQuery.INTROSPECTION_QUERY).toSpecification()
+        );
+    }
+}
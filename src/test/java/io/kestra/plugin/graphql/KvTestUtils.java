@@ -0,0 +1,32 @@
+package io.kestra.plugin.graphql;
+
+import io.kestra.core.utils.IdUtils;
+
+/**
+ * The KV store outlives a test, so the cache keys, validators and trigger states a test relies on are made unique to its run.
+ */
+final class KvTestUtils {
+    private KvTestUtils() {
+    }
+
+    /**
+     * The local GraphQL endpoint, with a query parameter unique to this run.
+     */
+    static String uniqueUri(int port) {
+        return "http://localhost:" + port + "/graphql?run=" + IdUtils.create();
+    }
+
+    /**
+     * The query followed by a comment unique to this run, which changes its cache key but not the operation sent.
+     */
+    static String uniqueQuery(String query) {
+        return query + " # " + IdUtils.create();
+    }
+
+    /**
+     * A trigger id unique to this run, the trigger state being stored under it.
+     */
+    static String uniqueId(String prefix) {
+        return prefix + "_" + IdUtils.create();
+    }
+}
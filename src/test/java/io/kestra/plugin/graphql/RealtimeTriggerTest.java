@@ -0,0 +1,382 @@
+package io.kestra.plugin.graphql;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.conditions.ConditionContext;
+import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@KestraTest
+class RealtimeTriggerTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFollowGraphQLTransportWsProtocol() throws Exception {
+        List<Map<String, Object>> sent = new ArrayList<>();
+        List<Object> events = new ArrayList<>();
+
+        TransportWsProtocol protocol = new TransportWsProtocol(
+            Map.of("authorization", "Bearer token"),
+            Map.of("query", "subscription { reviewAdded { stars } }"),
+            "1",
+            text -> sent.add(JacksonMapper.ofJson().readValue(text, Map.class)),
+            (data, errors) -> events.add(data)
+        );
+
+        protocol.init();
+        assertEquals(Map.of("type", "connection_init", "payload", Map.of("authorization", "Bearer token")), sent.getLast());
+
+        protocol.onMessage("{\"type\": \"connection_ack\"}");
+        assertTrue(protocol.isAcknowledged());
+        assertEquals("subscribe", sent.getLast().get("type"));
+        assertEquals("1", sent.getLast().get("id"));
+        assertEquals("subscription { reviewAdded { stars } }", ((Map<String, Object>) sent.getLast().get("payload")).get("query"));
+
+        protocol.onMessage("{\"type\": \"ping\"}");
+        assertEquals(Map.of("type", "pong"), sent.getLast());
+
+        protocol.onMessage("{\"type\": \"next\", \"id\": \"1\", \"payload\": {\"data\": {\"reviewAdded\": {\"stars\": 5}}}}");
+        protocol.onMessage("{\"type\": \"next\", \"id\": \"other\", \"payload\": {\"data\": {\"reviewAdded\": {\"stars\": 1}}}}");
+        assertEquals(List.of(Map.of("reviewAdded", Map.of("stars", 5))), events);
+
+        assertThrows(IOException.class, () -> protocol.onMessage("{\"type\": \"error\", \"id\": \"1\", \"payload\": [{\"message\": \"forbidden\"}]}"));
+
+        protocol.onMessage("{\"type\": \"complete\", \"id\": \"1\"}");
+        assertTrue(protocol.isCompleted());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReconnectWithBackoffWhenKeepAliveTimesOut() throws Exception {
+        List<Map<String, Object>> subscriptions = new CopyOnWriteArrayList<>();
+
+        try (WebSocketServer server = new WebSocketServer((index, connection) -> {
+            connection.accept();
+            connection.receive();
+            connection.send("{\"type\": \"connection_ack\"}");
+            Map<String, Object> subscribe = JacksonMapper.ofJson().readValue(connection.receive(), Map.class);
+            subscriptions.add(subscribe);
+            connection.send("{\"type\": \"next\", \"id\": \"" + subscribe.get("id") + "\", \"payload\": {\"data\": {\"reviewAdded\": {\"id\": " + index + "}}}}");
+
+            // never answer pings, so that the client considers the connection lost
+            while (connection.receive() != null) {
+                // ignore the pings
+            }
+        })) {
+            RealtimeTrigger trigger = RealtimeTrigger.builder()
+                .id("reviews_" + IdUtils.create())
+                .type(RealtimeTrigger.class.getName())
+                .uri(Property.ofValue(server.uri()))
+                .query(Property.ofValue("subscription($after: Int) { reviewAdded(after: $after) { id } }"))
+                .keepAlive(Property.ofValue(Duration.ofMillis(200)))
+                .resumePath(Property.ofValue("reviewAdded.id"))
+                .build();
+
+            List<Execution> executions = new CopyOnWriteArrayList<>();
+            CompletableFuture<Void> completed = this.evaluate(trigger, executions);
+
+            awaitUntil(() -> executions.size() == 2);
+            trigger.stop();
+            completed.get(5, TimeUnit.SECONDS);
+
+            assertEquals(Map.of("reviewAdded", Map.of("id", 1)), executions.get(0).getTrigger().getVariables().get("data"));
+            assertEquals(Map.of("reviewAdded", Map.of("id", 2)), executions.get(1).getTrigger().getVariables().get("data"));
+            // the connection is only considered lost after twice the keepalive without message, then the first delay is 1 second
+            assertTrue(Duration.between(server.connections().get(0), server.connections().get(1)).compareTo(Duration.ofMillis(1400)) >= 0);
+            assertEquals(1, ((Map<String, Object>) ((Map<String, Object>) subscriptions.get(1).get("payload")).get("variables")).get("after"));
+        }
+    }
+
+    @Test
+    void shouldStopDuringReconnectionBackoff() throws Exception {
+        // refuse every handshake, so that the trigger keeps reconnecting
+        try (WebSocketServer server = new WebSocketServer((index, connection) -> connection.reject())) {
+            RealtimeTrigger trigger = RealtimeTrigger.builder()
+                .id("reviews_" + IdUtils.create())
+                .type(RealtimeTrigger.class.getName())
+                .uri(Property.ofValue(server.uri()))
+                .query(Property.ofValue("subscription { reviewAdded { id } }"))
+                .build();
+
+            CompletableFuture<Void> completed = this.evaluate(trigger, new CopyOnWriteArrayList<>());
+
+            // after the second attempt, the trigger waits 2 seconds before the next one
+            awaitUntil(() -> server.connections().size() == 2);
+            Thread.sleep(100);
+            long start = System.nanoTime();
+            trigger.stop();
+            completed.get(5, TimeUnit.SECONDS);
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+            assertEquals(2, server.connections().size());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldEndWhenTheServerCompletesTheSubscription() throws Exception {
+        try (WebSocketServer server = new WebSocketServer((index, connection) -> {
+            connection.accept();
+            connection.receive();
+            connection.send("{\"type\": \"connection_ack\"}");
+            Map<String, Object> subscribe = JacksonMapper.ofJson().readValue(connection.receive(), Map.class);
+            connection.send("{\"type\": \"next\", \"id\": \"" + subscribe.get("id") + "\", \"payload\": {\"data\": {\"reviewAdded\": {\"id\": 1}}}}");
+            connection.send("{\"type\": \"complete\", \"id\": \"" + subscribe.get("id") + "\"}");
+
+            // keep the connection open, the client must not wait for it to be closed
+            while (connection.receive() != null) {
+                // ignore the messages
+            }
+        })) {
+            RealtimeTrigger trigger = RealtimeTrigger.builder()
+                .id("reviews_" + IdUtils.create())
+                .type(RealtimeTrigger.class.getName())
+                .uri(Property.ofValue(server.uri()))
+                .query(Property.ofValue("subscription { reviewAdded { id } }"))
+                .keepAlive(Property.ofValue(Duration.ofSeconds(30)))
+                .build();
+
+            List<Execution> executions = new CopyOnWriteArrayList<>();
+            // well before the first keepalive ping
+            this.evaluate(trigger, executions).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, executions.size());
+            assertEquals(1, server.connections().size());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFailWithoutReconnectingWhenTheServerRejectsTheSubscription() throws Exception {
+        try (WebSocketServer server = new WebSocketServer((index, connection) -> {
+            connection.accept();
+            connection.receive();
+            connection.send("{\"type\": \"connection_ack\"}");
+            Map<String, Object> subscribe = JacksonMapper.ofJson().readValue(connection.receive(), Map.class);
+            connection.send("{\"type\": \"error\", \"id\": \"" + subscribe.get("id") + "\", \"payload\": [{\"message\": \"Cannot query field 'reviewAdded'\"}]}");
+
+            while (connection.receive() != null) {
+                // ignore the messages
+            }
+        })) {
+            RealtimeTrigger trigger = RealtimeTrigger.builder()
+                .id("reviews_" + IdUtils.create())
+                .type(RealtimeTrigger.class.getName())
+                .uri(Property.ofValue(server.uri()))
+                .query(Property.ofValue("subscription { reviewAdded { id } }"))
+                .build();
+
+            CompletableFuture<Void> completed = this.evaluate(trigger, new CopyOnWriteArrayList<>());
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> completed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TransportWsProtocol.SubscriptionException.class, exception.getCause());
+            assertTrue(exception.getCause().getMessage().contains("reviewAdded"), exception.getCause().getMessage());
+            assertEquals(1, server.connections().size());
+        }
+    }
+
+    private CompletableFuture<Void> evaluate(RealtimeTrigger trigger, List<Execution> executions) throws Exception {
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        Flux.from(trigger.evaluate(context.getKey(), context.getValue()))
+            .subscribe(executions::add, completed::completeExceptionally, () -> completed.complete(null));
+
+        return completed;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within 10 seconds");
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Minimal WebSocket server, only supporting unfragmented text frames, each connection being handled by {@code handler} on its own thread.
+     */
+    private static final class WebSocketServer implements AutoCloseable {
+        private final ServerSocket serverSocket = new ServerSocket(0);
+
+        private final List<Instant> connections = new CopyOnWriteArrayList<>();
+
+        WebSocketServer(Handler handler) throws IOException {
+            Thread.ofVirtual().start(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        connections.add(Instant.now());
+                        int index = connections.size();
+                        Thread.ofVirtual().start(() -> {
+                            try (Connection connection = new Connection(socket)) {
+                                handler.handle(index, connection);
+                            } catch (Exception e) {
+                                // the client closed the connection
+                            }
+                        });
+                    } catch (IOException e) {
+                        // the server is closed
+                    }
+                }
+            });
+        }
+
+        String uri() {
+            return "ws://localhost:" + serverSocket.getLocalPort() + "/graphql";
+        }
+
+        List<Instant> connections() {
+            return connections;
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        @FunctionalInterface
+        interface Handler {
+            void handle(int index, Connection connection) throws Exception;
+        }
+    }
+
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+
+        private final DataInputStream in;
+
+        private final OutputStream out;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = socket.getOutputStream();
+        }
+
+        /**
+         * Read the upgrade request and accept it with the {@code graphql-transport-ws} subprotocol.
+         */
+        void accept() throws Exception {
+            String key = null;
+            String line = this.readLine();
+            while (!line.isEmpty()) {
+                if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                }
+                line = this.readLine();
+            }
+
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.US_ASCII));
+            out.write(("HTTP/1.1 101 Switching Protocols\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(digest) + "\r\n" +
+                "Sec-WebSocket-Protocol: " + TransportWsProtocol.SUBPROTOCOL + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        /**
+         * Read the upgrade request and refuse it.
+         */
+        void reject() throws IOException {
+            String line = this.readLine();
+            while (!line.isEmpty()) {
+                line = this.readLine();
+            }
+
+            out.write("HTTP/1.1 403 Forbidden\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        /**
+         * The next text message sent by the client, null once it closed the connection.
+         */
+        String receive() throws IOException {
+            while (true) {
+                int opcode = in.readUnsignedByte() & 0x0F;
+                int second = in.readUnsignedByte();
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                } else if (length == 127) {
+                    length = in.readLong();
+                }
+
+                // frames sent by clients are always masked
+                byte[] mask = new byte[4];
+                in.readFully(mask);
+                byte[] payload = new byte[(int) length];
+                in.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i % 4];
+                }
+
+                if (opcode == 0x8) {
+                    return null;
+                }
+                if (opcode == 0x1) {
+                    return new String(payload, StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        void send(String text) throws IOException {
+            byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+            out.write(0x81);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else {
+                out.write(126);
+                out.write(payload.length >> 8);
+                out.write(payload.length & 0xFF);
+            }
+            out.write(payload);
+            out.flush();
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b = in.read();
+            while (b != -1 && b != '\n') {
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+                b = in.read();
+            }
+
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.kestra.plugin.graphql;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.sun.management.ThreadMXBean;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContextFactory;
+
+import jakarta.inject.Inject;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput and latency of {@link Request} against a local WireMock stand-in for a GraphQL server.
+ * <p>
+ * Excluded from {@code test}, run it with {@code ./gradlew loadTest}. The load is configured with system properties:
+ * {@code load.operations} (default 5000), {@code load.concurrency} (32), {@code load.payloadBytes} (10240),
+ * {@code load.latencyMs} (5, server side) and {@code load.maxP99Ms} (no limit), e.g.
+ * {@code ./gradlew loadTest -Dload.concurrency=64 -Dload.payloadBytes=1048576}.
+ */
+@KestraTest
+@Tag("load")
+class RequestLoadTest {
+    private static final Logger log = LoggerFactory.getLogger(RequestLoadTest.class);
+
+    private static final int OPERATIONS = Integer.getInteger("load.operations", 5000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int PAYLOAD_BYTES = Integer.getInteger("load.payloadBytes", 10 * 1024);
+    private static final int LATENCY_MS = Integer.getInteger("load.latencyMs", 5);
+    private static final Long MAX_P99_MS = Long.getLong("load.maxP99Ms");
+
+    @RegisterExtension
+    static WireMockExtension wireMock = WireMockExtension.newInstance()
+        .options(wireMockConfig().dynamicPort().containerThreads(Math.max(CONCURRENCY * 2, 16)).disableRequestJournal())
+        .build();
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void sustainedLoad() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withFixedDelay(LATENCY_MS)
+                        .withBody(response(PAYLOAD_BYTES))
+                )
+        );
+
+        Request task = Request.builder()
+            .id("load")
+            .type(Request.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query Issues($first: Int) { issues(first: $first) { nodes { number title } } }"))
+            .variables(Property.ofValue(Map.of("first", 100)))
+            .build();
+
+        // warm up the JIT and the connection handling before measuring
+        run(task, Math.min(OPERATIONS / 10, 500));
+
+        Measure measure = run(task, OPERATIONS);
+        long[] latencies = measure.latencies();
+        Arrays.sort(latencies);
+
+        long p50 = percentile(latencies, 50);
+        long p99 = percentile(latencies, 99);
+        double throughput = OPERATIONS / (measure.elapsedNanos() / 1e9);
+        long allocated = measure.allocatedBytes() / OPERATIONS;
+
+        log.info(
+            "Request load test: {} operations, concurrency {}, payload {} bytes, server latency {} ms; " +
+                "throughput: {} ops/s; latency p50: {} ms, p99: {} ms, max: {} ms; allocated per request (calling thread): {} bytes",
+            OPERATIONS, CONCURRENCY, PAYLOAD_BYTES, LATENCY_MS,
+            Math.round(throughput), millis(p50), millis(p99), millis(latencies[latencies.length - 1]), allocated
+        );
+
+        assertEquals(0, measure.failures(), "failed requests");
+        if (MAX_P99_MS != null) {
+            assertTrue(p99 / 1_000_000 <= MAX_P99_MS, "p99 latency of " + p99 / 1_000_000 + " ms is above " + MAX_P99_MS + " ms");
+        }
+    }
+
+    /**
+     * Run {@code operations} task runs on {@code CONCURRENCY} platform threads, the allocations being read per thread.
+     */
+    private Measure run(Request task, int operations) throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] latencies = new long[operations];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        try {
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                workers.add(executor.submit(() -> {
+                    long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+                    int operation;
+                    while ((operation = next.getAndIncrement()) < operations) {
+                        long operationStart = System.nanoTime();
+                        try {
+                            task.run(runContextFactory.of());
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[operation] = System.nanoTime() - operationStart;
+                    }
+                    return threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                }));
+            }
+
+            long allocated = 0;
+            for (Future<Long> worker : workers) {
+                allocated += worker.get();
+            }
+
+            return new Measure(latencies, System.nanoTime() - start, allocated, failures.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private static String response(int size) {
+        StringBuilder builder = new StringBuilder(size + 128);
+        builder.append("{\"data\":{\"issues\":{\"nodes\":[");
+        for (int i = 0; builder.length() < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"number\":").append(i).append(",\"title\":\"Issue number ").append(i).append("\"}");
+        }
+        builder.append("]}}}");
+
+        return builder.toString();
+    }
+
+    private record Measure(long[] latencies, long elapsedNanos, long allocatedBytes, int failures) {
+    }
+}
@@ -1,7 +1,24 @@
 package io.kestra.plugin.graphql;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.CharConversionException;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -11,12 +28,16 @@ import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 
 import io.kestra.core.junit.annotations.KestraTest;
 import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.common.FetchType;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.TestsUtils;
 
 import jakarta.inject.Inject;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.kestra.core.utils.Rethrow.throwSupplier;
 import static org.junit.jupiter.api.Assertions.*;
 
 @KestraTest
@@ -237,4 +258,726 @@ class RequestTest {
         assertNull(output.getBody()); // body should be null when encrypted
         assertNotNull(output.getEncryptedBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStoreExtractedRowsInInternalStorage() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"extensions\": { \"cost\": 3 }, \"data\": { \"repository\": { \"name\": \"kestra\", \"issues\": { \"nodes\": [{ \"number\": 1 }, { \"number\": 2 }, { \"number\": 3 }] } } } }")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { repository { name issues { nodes { number } } } }"))
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .extract(Property.ofValue("data.repository.issues.nodes"))
+            .build();
+
+        RunContext runContext = runContextFactory.of();
+        Request.Output output = task.run(runContext);
+
+        assertEquals(200, output.getCode());
+        assertNull(output.getBody());
+        assertEquals(3L, output.getSize());
+        assertNotNull(output.getStoredUri());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getStoredUri())))) {
+            List<Object> rows = FileSerde.readAll(reader).collectList().block();
+            assertNotNull(rows);
+            assertEquals(3, rows.size());
+            assertEquals(2, ((Map<String, Object>) rows.get(1)).get("number"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFollowRelayConnectionPages() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(2)
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"issues\": { \"nodes\": [{ \"number\": 1 }, { \"number\": 2 }], \"pageInfo\": { \"hasNextPage\": true, \"endCursor\": \"c2\" } } } }")
+                )
+        );
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(1)
+                .withRequestBody(matchingJsonPath("$.variables.after", equalTo("c2")))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"issues\": { \"pageInfo\": { \"hasNextPage\": false, \"endCursor\": \"c3\" }, \"nodes\": [{ \"number\": 3 }] } } }")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query Issues($after: String) { issues(first: 2, after: $after) { nodes { number } pageInfo { hasNextPage endCursor } } }"))
+            .paginationPath(Property.ofValue("data.issues"))
+            .build();
+
+        RunContext runContext = runContextFactory.of();
+        Request.Output output = task.run(runContext);
+
+        assertEquals(2, output.getPages());
+        assertEquals(3L, output.getSize());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getStoredUri())))) {
+            List<Object> rows = FileSerde.readAll(reader).collectList().block();
+            assertNotNull(rows);
+            assertEquals(3, ((Map<String, Object>) rows.get(2)).get("number"));
+        }
+    }
+
+    @Test
+    void shouldRetryPersistedQueryWithFullDocumentWhenHashIsUnknown() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(2)
+                .withRequestBody(matchingJsonPath("$.extensions.persistedQuery.sha256Hash"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"viewer\": { \"name\": \"admin\" } } }")
+                )
+        );
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(1)
+                .withRequestBody(notContaining("\"query\""))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"errors\": [{ \"message\": \"PersistedQueryNotFound\", \"extensions\": { \"code\": \"PERSISTED_QUERY_NOT_FOUND\" } }] }")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { viewer { name } }"))
+            .persistedQuery(Property.ofValue(true))
+            .build();
+
+        Request.Output output = task.run(runContextFactory.of());
+
+        assertNull(output.getError());
+        assertNotNull(output.getBody());
+        wireMock.verify(2, postRequestedFor(urlEqualTo("/graphql")));
+    }
+
+    @Test
+    void shouldSendGetRequestAsUrlParameters() throws Exception {
+        wireMock.stubFor(
+            get(urlPathEqualTo("/graphql"))
+                .withQueryParam("query", containing("GetUser"))
+                .withQueryParam("operationName", equalTo("GetUser"))
+                .withQueryParam("variables", equalToJson("{ \"id\": \"123\" }"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"user\": { \"name\": \"admin\" } } }")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .method(Property.ofValue("GET"))
+            .query(Property.ofValue("query GetUser($id: ID!) { user(id: $id) { name } }"))
+            .operationName(Property.ofValue("GetUser"))
+            .variables(Property.ofValue(Map.of("id", "123")))
+            .build();
+
+        Request.Output output = task.run(runContextFactory.of());
+
+        assertEquals(200, output.getCode());
+        assertNotNull(output.getBody());
+        wireMock.verify(getRequestedFor(urlPathEqualTo("/graphql")).withoutHeader("Content-Type"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSendArrayBatchesAndDemultiplexResults() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(2)
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("[{ \"data\": { \"user\": { \"name\": \"user3\" } } }]")
+                )
+        );
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(1)
+                .withRequestBody(matchingJsonPath("$[1].variables.id"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("[{ \"data\": { \"user\": { \"name\": \"user1\" } } }, { \"data\": null, \"errors\": [{ \"message\": \"not found\" }] }]")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query GetUser($id: ID!) { user(id: $id) { name } }"))
+            .variablesFrom(Property.ofValue(List.of(Map.of("id", "1"), Map.of("id", "2"), Map.of("id", "3"))))
+            .batchSize(Property.ofValue(2))
+            .build();
+
+        RunContext runContext = runContextFactory.of();
+        Request.Output output = task.run(runContext);
+
+        assertEquals(3L, output.getSize());
+        wireMock.verify(2, postRequestedFor(urlEqualTo("/graphql")));
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getStoredUri())))) {
+            List<Object> rows = FileSerde.readAll(reader).collectList().block();
+            assertNotNull(rows);
+            assertEquals(3, rows.size());
+
+            Map<String, Object> second = (Map<String, Object>) rows.get(1);
+            assertEquals(1, ((Number) second.get("index")).intValue());
+            assertNotNull(second.get("errors"));
+
+            Map<String, Object> third = (Map<String, Object>) rows.get(2);
+            assertEquals("3", ((Map<String, Object>) third.get("variables")).get("id"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFanOutVariableSetsConcurrentlyInInputOrder() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"user\": { \"name\": \"admin\" } } }")
+                        .withUniformRandomDelay(0, 50)
+                )
+        );
+
+        List<Map<String, Object>> variableSets = IntStream.range(0, 20)
+            .<Map<String, Object>>mapToObj(i -> Map.of("id", String.valueOf(i)))
+            .toList();
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query GetUser($id: ID!) { user(id: $id) { name } }"))
+            .variablesFrom(Property.ofValue(variableSets))
+            .batchSize(Property.ofValue(1))
+            .concurrency(Property.ofValue(5))
+            .build();
+
+        RunContext runContext = runContextFactory.of();
+        Request.Output output = task.run(runContext);
+
+        assertEquals(20L, output.getSize());
+        wireMock.verify(20, postRequestedFor(urlEqualTo("/graphql")));
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getStoredUri())))) {
+            List<Object> rows = FileSerde.readAll(reader).collectList().block();
+            assertNotNull(rows);
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(i, ((Number) ((Map<String, Object>) rows.get(i)).get("index")).intValue());
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReturnExtensionsOnlyWhenRequested() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"extensions\": { \"cost\": { \"requested\": 12 } }, \"unknown\": [1, 2, 3], \"data\": { \"viewer\": { \"name\": \"admin\" } } }")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { viewer { name } }"))
+            .build();
+
+        Request.Output output = task.run(runContextFactory.of());
+        assertNull(output.getExtensions());
+        assertEquals("admin", ((Map<String, Object>) ((Map<String, Object>) output.getBody()).get("viewer")).get("name"));
+
+        Request withExtensions = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { viewer { name } }"))
+            .includeExtensions(Property.ofValue(true))
+            .build();
+
+        output = withExtensions.run(runContextFactory.of());
+        assertEquals(12, ((Map<String, Object>) ((Map<String, Object>) output.getExtensions()).get("cost")).get("requested"));
+    }
+
+    @Test
+    void shouldReportOffsetOfIllegalUnicodeCharacter() {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"name\": \"a\uFFFFb\" } }")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { name }"))
+            .build();
+
+        Throwable exception = assertThrows(Exception.class, () -> task.run(runContextFactory.of()));
+        while (exception.getCause() != null && !(exception instanceof CharConversionException)) {
+            exception = exception.getCause();
+        }
+        assertTrue(exception.getMessage().contains("Illegal unicode code point in response body: 65535 at offset 22"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldExtractSubTreeIntoBody() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"repository\": { \"name\": \"kestra\", \"issues\": { \"nodes\": [{ \"title\": \"first\" }, { \"title\": \"second\" }] } } } }")
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { repository { name issues { nodes { title } } } }"))
+            .extract(Property.ofValue("$.data.repository.issues.nodes"))
+            .build();
+
+        Request.Output output = task.run(runContextFactory.of());
+        List<Object> nodes = (List<Object>) output.getBody();
+        assertEquals(2, nodes.size());
+
+        Request single = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { repository { name issues { nodes { title } } } }"))
+            .extract(Property.ofValue("data.repository.issues.nodes[1].title"))
+            .build();
+
+        assertEquals("second", single.run(runContextFactory.of()).getBody());
+    }
+
+    @Test
+    void shouldServeRepeatedQueriesFromCacheButNotMutations() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"viewer\": { \"name\": \"admin\" } } }")
+                )
+        );
+
+        String viewer = KvTestUtils.uniqueQuery("query Viewer { viewer { name } }");
+        Request query = Request.builder()
+            .id("query")
+            .type(Request.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue(viewer))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .build();
+
+        Request.Output first = query.run(TestsUtils.mockRunContext(runContextFactory, query, Map.of()));
+        Request.Output second = query.run(TestsUtils.mockRunContext(runContextFactory, query, Map.of()));
+
+        assertEquals(first.getBody(), second.getBody());
+        wireMock.verify(1, postRequestedFor(urlEqualTo("/graphql")));
+
+        Request mutation = Request.builder()
+            .id("mutation")
+            .type(Request.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue(KvTestUtils.uniqueQuery("mutation Touch { touch { name } }")))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .build();
+
+        mutation.run(TestsUtils.mockRunContext(runContextFactory, mutation, Map.of()));
+        mutation.run(TestsUtils.mockRunContext(runContextFactory, mutation, Map.of()));
+
+        wireMock.verify(3, postRequestedFor(urlEqualTo("/graphql")));
+    }
+
+    @Test
+    void shouldServeFromMemoryCacheAndInvalidateIt() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"viewer\": { \"name\": \"admin\" } } }")
+                )
+        );
+
+        String viewer = KvTestUtils.uniqueQuery("query Viewer { viewer { name } }");
+        Request query = Request.builder()
+            .id("query")
+            .type(Request.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue(viewer))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .build();
+
+        query.run(TestsUtils.mockRunContext(runContextFactory, query, Map.of()));
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, Map.of());
+        query.run(runContext);
+
+        assertTrue(runContext.metrics().stream().anyMatch(metric -> metric.getName().equals("cache.memory.hit")));
+        wireMock.verify(1, postRequestedFor(urlEqualTo("/graphql")));
+
+        Request invalidating = Request.builder()
+            .id("query")
+            .type(Request.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue(viewer))
+            .cacheTtl(Property.ofValue(Duration.ofMinutes(5)))
+            .invalidateCache(Property.ofValue(true))
+            .build();
+
+        invalidating.run(TestsUtils.mockRunContext(runContextFactory, invalidating, Map.of()));
+
+        wireMock.verify(2, postRequestedFor(urlEqualTo("/graphql")));
+    }
+
+    @Test
+    void shouldReusePreviousOutputWhenNotModified() throws Exception {
+        wireMock.stubFor(
+            get(urlPathEqualTo("/graphql"))
+                .atPriority(2)
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", "\"v1\"")
+                        .withBody("{ \"data\": { \"viewer\": { \"name\": \"admin\" } } }")
+                )
+        );
+        wireMock.stubFor(
+            get(urlPathEqualTo("/graphql"))
+                .atPriority(1)
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304))
+        );
+
+        Request task = Request.builder()
+            .id("conditional")
+            .type(Request.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .method(Property.ofValue("GET"))
+            .query(Property.ofValue(KvTestUtils.uniqueQuery("query Viewer { viewer { name } }")))
+            .conditionalRequests(Property.ofValue(true))
+            .build();
+
+        Request.Output first = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+        Request.Output second = task.run(TestsUtils.mockRunContext(runContextFactory, task, Map.of()));
+
+        assertNull(first.getNotModified());
+        assertEquals(304, second.getCode());
+        assertEquals(Boolean.TRUE, second.getNotModified());
+        assertEquals(first.getBody(), second.getBody());
+        wireMock.verify(1, getRequestedFor(urlPathEqualTo("/graphql")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void shouldCompressRequestAndDecodeCompressedResponse() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("{ \"data\": { \"viewer\": { \"name\": \"admin\" } } }".getBytes(StandardCharsets.UTF_8));
+        }
+
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .withHeader("Content-Encoding", equalTo("gzip"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("Content-Encoding", "gzip")
+                        .withBody(compressed.toByteArray())
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { viewer { name } } # " + "x".repeat(1000)))
+            .requestCompression(Property.ofValue(Compression.GZIP))
+            .build();
+
+        RunContext runContext = runContextFactory.of();
+        Request.Output output = task.run(runContext);
+
+        assertEquals(Map.of("viewer", Map.of("name", "admin")), output.getBody());
+        double sent = runContext.metrics().stream().filter(metric -> metric.getName().equals("request.bytes")).mapToDouble(metric -> ((Number) metric.getValue()).doubleValue()).sum();
+        double uncompressed = runContext.metrics().stream().filter(metric -> metric.getName().equals("request.uncompressed.bytes")).mapToDouble(metric -> ((Number) metric.getValue()).doubleValue()).sum();
+        assertTrue(sent < uncompressed);
+        wireMock.verify(1, postRequestedFor(urlEqualTo("/graphql"))
+            .withHeader("Accept-Encoding", containing("gzip"))
+            .withHeader("Content-Type", containing("charset=UTF-8")));
+    }
+
+    @Test
+    void shouldReportTimingAndSizeMetrics() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"viewer\": null }, \"errors\": [{ \"message\": \"forbidden\" }, { \"message\": \"denied\" }] }")
+                )
+        );
+
+        // the encrypted body is buffered, but must report the same metrics as a streamed one
+        for (boolean encryptBody : List.of(false, true)) {
+            Request task = Request.builder()
+                .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+                .query(Property.ofValue("query { viewer { name } }"))
+                .encryptBody(Property.ofValue(encryptBody))
+                .build();
+
+            RunContext runContext = runContextFactory.of();
+            task.run(runContext);
+
+            List<String> names = runContext.metrics().stream().map(metric -> metric.getName()).toList();
+            assertTrue(names.containsAll(List.of(
+                "request.build.duration", "request.bytes", "http.ttfb", "http.duration", "http.requests", "response.parse.duration", "response.bytes", "graphql.errors"
+            )), names::toString);
+            assertEquals(
+                2.0,
+                runContext.metrics().stream().filter(metric -> metric.getName().equals("graphql.errors")).mapToDouble(metric -> ((Number) metric.getValue()).doubleValue()).sum()
+            );
+        }
+    }
+
+    @Test
+    void shouldMergeDeferredAndStreamedParts() throws Exception {
+        String body = String.join("\r\n",
+            "---",
+            "Content-Type: application/json; charset=utf-8",
+            "",
+            "{ \"data\": { \"viewer\": { \"name\": \"admin\", \"repositories\": [{ \"name\": \"a\" }] } }, \"pending\": [{ \"id\": \"0\", \"path\": [\"viewer\"] }, { \"id\": \"1\", \"path\": [\"viewer\", \"repositories\"] }], \"hasNext\": true }",
+            "---",
+            "Content-Type: application/json; charset=utf-8",
+            "",
+            "{}",
+            "---",
+            "Content-Type: application/json; charset=utf-8",
+            "",
+            "{ \"incremental\": [{ \"id\": \"0\", \"data\": { \"email\": \"admin@example.com\" } }, { \"id\": \"1\", \"items\": [{ \"name\": \"b\" }] }], \"completed\": [{ \"id\": \"0\" }, { \"id\": \"1\" }], \"hasNext\": false }",
+            "-----",
+            ""
+        );
+
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "multipart/mixed; boundary=\"-\"")
+                        .withBody(body)
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { viewer { name ... @defer { email } repositories @stream(initialCount: 1) { name } } }"))
+            .incrementalDelivery(Property.ofValue(true))
+            .build();
+
+        Request.Output output = task.run(runContextFactory.of());
+
+        assertEquals(
+            Map.of("viewer", Map.of(
+                "name", "admin",
+                "email", "admin@example.com",
+                "repositories", List.of(Map.of("name", "a"), Map.of("name", "b"))
+            )),
+            output.getBody()
+        );
+        assertNull(output.getError());
+        wireMock.verify(1, postRequestedFor(urlEqualTo("/graphql")).withHeader("Accept", containing("multipart/mixed")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStoreStreamedRowsWithDeferredFragments() throws Exception {
+        String body = String.join("\r\n",
+            "---",
+            "Content-Type: application/json; charset=utf-8",
+            "",
+            "{ \"data\": { \"repositories\": [{ \"name\": \"a\" }] }, \"pending\": [{ \"id\": \"0\", \"path\": [\"repositories\", 0] }, { \"id\": \"1\", \"path\": [\"repositories\"] }], \"hasNext\": true }",
+            "---",
+            "Content-Type: application/json; charset=utf-8",
+            "",
+            "{ \"incremental\": [{ \"id\": \"1\", \"items\": [{ \"name\": \"b\" }] }], \"completed\": [{ \"id\": \"1\" }], \"hasNext\": true }",
+            "---",
+            "Content-Type: application/json; charset=utf-8",
+            "",
+            "{ \"incremental\": [{ \"id\": \"0\", \"data\": { \"owner\": \"admin\" } }], \"completed\": [{ \"id\": \"0\" }], \"hasNext\": false }",
+            "-----",
+            ""
+        );
+
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "multipart/mixed; boundary=\"-\"")
+                        .withBody(body)
+                )
+        );
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { repositories @stream(initialCount: 1) { name ... @defer { owner } } }"))
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .extract(Property.ofValue("data.repositories"))
+            .incrementalDelivery(Property.ofValue(true))
+            .build();
+
+        RunContext runContext = runContextFactory.of();
+        Request.Output output = task.run(runContext);
+
+        assertEquals(2L, output.getSize());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getStoredUri())))) {
+            List<Object> rows = FileSerde.readAll(reader).collectList().block();
+            assertEquals(List.of(Map.of("name", "a", "owner", "admin"), Map.of("name", "b")), rows);
+        }
+    }
+
+    @Test
+    void shouldHandOverStreamedRowsBeforeTheResponseCompletes() throws Exception {
+        PipedOutputStream server = new PipedOutputStream();
+        PipedInputStream response = new PipedInputStream(server);
+        BlockingQueue<Object> rows = new LinkedBlockingQueue<>();
+
+        CompletableFuture<ResponseReader.Result> result = CompletableFuture.supplyAsync(throwSupplier(
+            () -> IncrementalDelivery.rows(ResponseReader.path("data.items"), true, rows::add).read(response, "-")
+        ));
+
+        server.write(String.join("\r\n",
+            "---",
+            "Content-Type: application/json",
+            "",
+            "{ \"data\": { \"items\": [1] }, \"pending\": [{ \"id\": \"0\", \"path\": [\"items\"] }], \"hasNext\": true }",
+            ""
+        ).getBytes(StandardCharsets.UTF_8));
+        server.flush();
+
+        // the first row is written while the server has not sent the next part yet
+        assertEquals(1, rows.poll(10, TimeUnit.SECONDS));
+
+        server.write(String.join("\r\n",
+            "---",
+            "Content-Type: application/json",
+            "",
+            "{ \"incremental\": [{ \"id\": \"0\", \"items\": [2, 3] }], \"completed\": [{ \"id\": \"0\" }], \"hasNext\": false }",
+            "-----",
+            ""
+        ).getBytes(StandardCharsets.UTF_8));
+        server.close();
+
+        assertEquals(3L, result.get(10, TimeUnit.SECONDS).getRows());
+        assertEquals(List.of(2, 3), List.copyOf(rows));
+    }
+
+    @Test
+    void shouldUploadFilesFromInternalStorage() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .withHeader("Content-Type", containing("multipart/form-data"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"upload\": { \"id\": \"1\" } } }")
+                )
+        );
+
+        RunContext runContext = runContextFactory.of();
+        File file = runContext.workingDir().createTempFile("file content".getBytes(StandardCharsets.UTF_8), ".txt").toFile();
+        URI uri = runContext.storage().putFile(file);
+
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("mutation($file: Upload!, $label: String) { upload(file: $file, label: $label) { id } }"))
+            .variables(Property.ofValue(Map.of("label", "report")))
+            .uploads(Property.ofValue(Map.of("file", uri.toString())))
+            .build();
+
+        Request.Output output = task.run(runContext);
+
+        assertEquals(Map.of("upload", Map.of("id", "1")), output.getBody());
+        wireMock.verify(1, postRequestedFor(urlEqualTo("/graphql"))
+            .withRequestBody(containing("\"file\":null"))
+            .withRequestBody(containing("\"label\":\"report\""))
+            .withRequestBody(containing("{\"0\":[\"variables.file\"]}"))
+            .withRequestBody(containing("file content"))
+        );
+    }
+
+    @Test
+    void shouldRejectUploadsWithGetRequests() {
+        Request task = Request.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .method(Property.ofValue("GET"))
+            .query(Property.ofValue("mutation($file: Upload!) { upload(file: $file) { id } }"))
+            .uploads(Property.ofValue(Map.of("file", "kestra:///file.txt")))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContextFactory.of()));
+        wireMock.verify(0, getRequestedFor(urlPathEqualTo("/graphql")));
+    }
+
+    @Test
+    void shouldValidateQueryAgainstCachedSchemaBeforeSending() throws Exception {
+        wireMock.stubFor(
+            post(urlPathEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"viewer\": { \"name\": \"admin\" } } }")
+                )
+        );
+
+        String uri = KvTestUtils.uniqueUri(wireMock.getPort());
+        Request valid = Request.builder()
+            .id("validated")
+            .type(Request.class.getName())
+            .uri(Property.ofValue(uri))
+            .query(Property.ofValue("query { viewer { name } }"))
+            .validateQuery(Property.ofValue(true))
+            .build();
+        Request invalid = Request.builder()
+            .id("validated")
+            .type(Request.class.getName())
+            .uri(Property.ofValue(uri))
+            .query(Property.ofValue("query { viewer { nmae } }"))
+            .validateQuery(Property.ofValue(true))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, valid, Map.of());
+        SchemaCache.put(runContext, SchemaCache.key(uri, Map.of()), Map.of("__schema", Map.of()), IntrospectTest.SDL, Map.of());
+
+        Request.Output output = valid.run(runContext);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> invalid.run(TestsUtils.mockRunContext(runContextFactory, invalid, Map.of())));
+
+        assertEquals(Map.of("viewer", Map.of("name", "admin")), output.getBody());
+        assertTrue(exception.getMessage().contains("nmae"), exception.getMessage());
+        wireMock.verify(1, postRequestedFor(urlPathEqualTo("/graphql")));
+    }
+}
@@ -0,0 +1,126 @@
+package io.kestra.plugin.graphql;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+
+import jakarta.inject.Inject;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@KestraTest
+class SubscribeTest {
+    private static final String EVENTS = """
+        : keepalive
+
+        event: next
+        data: {"data": {"reviewAdded": {"stars": 5}}}
+
+        event: next
+        data: {"data": {"reviewAdded": {"stars": 3}}}
+
+        event: complete
+        data:
+
+        """;
+
+    @RegisterExtension
+    static WireMockExtension wireMock = WireMockExtension.newInstance()
+        .build();
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldStoreEventsUntilCompleted() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql/stream"))
+                .withHeader("Accept", equalTo("text/event-stream"))
+                .withRequestBody(containing("reviewAdded"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody(EVENTS)
+                )
+        );
+
+        Subscribe task = Subscribe.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql/stream"))
+            .query(Property.ofValue("subscription { reviewAdded { stars } }"))
+            .build();
+
+        RunContext runContext = runContextFactory.of();
+        Subscribe.Output output = task.run(runContext);
+
+        assertEquals(2L, output.getSize());
+        assertTrue(output.getCompleted());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+            List<Object> rows = FileSerde.readAll(reader).collectList().block();
+            assertEquals(Map.of("reviewAdded", Map.of("stars", 3)), ((Map<?, ?>) rows.get(1)).get("data"));
+        }
+    }
+
+    @Test
+    void shouldStopAfterMaxEvents() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql/stream"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody(EVENTS)
+                )
+        );
+
+        Subscribe task = Subscribe.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql/stream"))
+            .query(Property.ofValue("subscription { reviewAdded { stars } }"))
+            .maxEvents(Property.ofValue(1))
+            .build();
+
+        Subscribe.Output output = task.run(runContextFactory.of());
+
+        assertEquals(1L, output.getSize());
+        assertFalse(output.getCompleted());
+    }
+
+    @Test
+    void shouldStopAfterMaxDurationWhileWaitingForHeaders() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql/stream"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withFixedDelay(10000)
+                        .withBody(EVENTS)
+                )
+        );
+
+        Subscribe task = Subscribe.builder()
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql/stream"))
+            .query(Property.ofValue("subscription { reviewAdded { stars } }"))
+            .maxDuration(Property.ofValue(Duration.ofMillis(500)))
+            .build();
+
+        long start = System.nanoTime();
+        Subscribe.Output output = task.run(runContextFactory.of());
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+        assertEquals(0L, output.getSize());
+        assertFalse(output.getCompleted());
+    }
+}
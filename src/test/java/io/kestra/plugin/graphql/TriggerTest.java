@@ -0,0 +1,137 @@
+package io.kestra.plugin.graphql;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.conditions.ConditionContext;
+import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@KestraTest
+class TriggerTest {
+    @RegisterExtension
+    static WireMockExtension wireMock = WireMockExtension.newInstance()
+        .build();
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void shouldOnlyTriggerWhenResultChanges() throws Exception {
+        stubIssues("[{ \"number\": 1 }]");
+
+        Trigger trigger = Trigger.builder()
+            .id(KvTestUtils.uniqueId("issues"))
+            .type(Trigger.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query { issues { number } }"))
+            .extract(Property.ofValue("data.issues"))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        Optional<Execution> first = trigger.evaluate(context.getKey(), context.getValue());
+        Optional<Execution> unchanged = trigger.evaluate(context.getKey(), context.getValue());
+
+        stubIssues("[{ \"number\": 1 }, { \"number\": 2 }]");
+        Optional<Execution> changed = trigger.evaluate(context.getKey(), context.getValue());
+
+        assertTrue(first.isPresent());
+        assertTrue(unchanged.isEmpty());
+        assertTrue(changed.isPresent());
+        assertEquals(List.of(Map.of("number", 1), Map.of("number", 2)), changed.get().getTrigger().getVariables().get("body"));
+    }
+
+    @Test
+    void shouldPassWatermarkOfLastRows() throws Exception {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(2)
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"items\": [{ \"id\": 1, \"updatedAt\": \"2024-01-02T00:00:00Z\" }, { \"id\": 2, \"updatedAt\": \"2024-01-01T00:00:00Z\" }] } }")
+                )
+        );
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .atPriority(1)
+                .withRequestBody(matchingJsonPath("$.variables.since", equalTo("2024-01-02T00:00:00Z")))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"items\": [] } }")
+                )
+        );
+
+        Trigger trigger = Trigger.builder()
+            .id(KvTestUtils.uniqueId("items"))
+            .type(Trigger.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query Items($since: String) { items(updatedAfter: $since) { id updatedAt } }"))
+            .extract(Property.ofValue("data.items"))
+            .watermarkPath(Property.ofValue("updatedAt"))
+            .initialWatermark(Property.ofValue("2023-12-31T00:00:00Z"))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        Optional<Execution> first = trigger.evaluate(context.getKey(), context.getValue());
+        Optional<Execution> second = trigger.evaluate(context.getKey(), context.getValue());
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isEmpty());
+        wireMock.verify(1, postRequestedFor(urlEqualTo("/graphql")).withRequestBody(matchingJsonPath("$.variables.since", equalTo("2023-12-31T00:00:00Z"))));
+    }
+
+    @Test
+    void shouldRequireListOfRowsWithWatermark() {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"items\": [] } }")
+                )
+        );
+
+        Trigger trigger = Trigger.builder()
+            .id(KvTestUtils.uniqueId("items"))
+            .type(Trigger.class.getName())
+            .uri(Property.ofValue("http://localhost:" + wireMock.getPort() + "/graphql"))
+            .query(Property.ofValue("query Items($since: String) { items(updatedAfter: $since) { id updatedAt } }"))
+            .watermarkPath(Property.ofValue("updatedAt"))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        // the default `extract` selects the `data` object, not the empty list of rows under it
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> trigger.evaluate(context.getKey(), context.getValue()));
+        assertTrue(exception.getMessage().contains("data.items"));
+    }
+
+    private static void stubIssues(String issues) {
+        wireMock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"data\": { \"issues\": " + issues + " } }")
+                )
+        );
+    }
+}